@@ -1,5 +1,5 @@
-import { useState, useEffect } from 'react';
-import { useMutation, useQuery, gql } from '@apollo/client';
+import { useState } from 'react';
+import { useApolloClient, useMutation, gql } from '@apollo/client';
 
 const MAKE_MOVE = gql`
   mutation MakeMove($gameId: ID!, $fromRow: Int!, $fromCol: Int!, $toRow: Int!, $toCol: Int!) {
@@ -15,98 +15,32 @@ const MAKE_MOVE = gql`
   }
 `;
 
-const GET_GAME = gql`
-  query GetGame($gameId: ID!) {
-    getGame(gameId: $gameId) {
-      id
-      status
-      currentPlayer
-      winner
-      gameType
-      aiDifficulty
-      aiColor
-      pieces {
-        type
-        color
-        row
-        col
-        hasMoved
-      }
+const LEGAL_MOVES = gql`
+  query LegalMoves($gameId: ID!, $fromRow: Int!, $fromCol: Int!) {
+    legalMoves(gameId: $gameId, fromRow: $fromRow, fromCol: $fromCol) {
+      toRow
+      toCol
     }
   }
 `;
 
-const IS_AI_TURN = gql`
-  query IsAITurn($gameId: ID!) {
-    isAITurn(gameId: $gameId)
-  }
-`;
-
 const ChessBoard = ({ game, gameId, onMoveComplete }) => {
+  const client = useApolloClient();
   const [selectedSquare, setSelectedSquare] = useState(null);
   const [validMoves, setValidMoves] = useState([]);
   const [moveError, setMoveError] = useState(null);
-  const [isAIThinking, setIsAIThinking] = useState(false);
   const [makeMove, { loading: moveLoading }] = useMutation(MAKE_MOVE);
   
-  // Query to check if it's AI's turn
-  const { data: aiTurnData, refetch: refetchAITurn } = useQuery(IS_AI_TURN, {
-    variables: { gameId },
-    skip: !game?.gameType || game.gameType !== 'HUMAN_VS_AI',
-    pollInterval: game?.gameType === 'HUMAN_VS_AI' && game?.status === 'ACTIVE' ? 2000 : 0, // Poll every 2 seconds for active AI games
-  });
-  
-  // Query to get updated game state
-  const { refetch: refetchGame } = useQuery(GET_GAME, {
-    variables: { gameId },
-    skip: true, // We'll manually refetch when needed
-    fetchPolicy: 'network-only', // Always fetch from network, not cache
-  });
-
-  useEffect(() => {
-    if (game?.gameType === 'HUMAN_VS_AI' && aiTurnData?.isAITurn && !isAIThinking) {
-      console.log('AI turn detected, starting AI thinking...');
-      setIsAIThinking(true);
-      
-      // Wait for AI move to complete, then refetch
-      const timeout = setTimeout(async () => {
-        console.log('Checking for AI move completion...');
-        try {
-          const gameResult = await refetchGame();
-          await refetchAITurn();
-          console.log('Refetch completed, game status:', gameResult.data?.getGame?.status);
-          setIsAIThinking(false);
-          
-          // Force the parent component to update with the new game state
-          if (onMoveComplete) {
-            onMoveComplete();
-          }
-        } catch (error) {
-          console.error('Error during AI move refetch:', error);
-          setIsAIThinking(false);
-        }
-      }, 2000); // Reduced to 2 seconds since AI completes quickly
-      
-      return () => clearTimeout(timeout);
-    }
-  }, [aiTurnData?.isAITurn, game?.gameType, refetchGame, refetchAITurn, onMoveComplete, isAIThinking]);
-
-  // Additional effect to handle when AI turn ends
-  useEffect(() => {
-    if (game?.gameType === 'HUMAN_VS_AI' && !aiTurnData?.isAITurn && isAIThinking) {
-      console.log('AI turn ended, stopping thinking indicator');
-      setIsAIThinking(false);
-      if (onMoveComplete) {
-        onMoveComplete();
-      }
-    }
-  }, [aiTurnData?.isAITurn, game?.gameType, isAIThinking, onMoveComplete]);
+  // The game prop is kept current by the gameUpdated subscription, which delivers the AI's
+  // reply as soon as it is played, so the AI turn is read from it instead of polled
+  const isAIThinking = game?.gameType === 'HUMAN_VS_AI' && game?.status === 'ACTIVE'
+    && game?.currentPlayer === game?.aiColor;
 
   const handleSquareClick = async (row, col) => {
     console.log('Square clicked:', row, col);
     
     // Don't allow moves during AI turn or when AI is thinking
-    if (isAIThinking || (game?.gameType === 'HUMAN_VS_AI' && aiTurnData?.isAITurn)) {
+    if (isAIThinking) {
       console.log('Blocking move - AI is thinking or it\'s AI turn');
       return;
     }
@@ -172,207 +106,19 @@ const ChessBoard = ({ game, gameId, onMoveComplete }) => {
     }
   };
 
+  // One request returns every legal destination, computed by the server's move generator
   const getValidMovesForPiece = async (row, col) => {
-    const piece = getPieceAt(row, col);
-    if (!piece) return;
-
-    const moves = [];
-    
-    // Test each square on the board to see if it's a valid move
-    for (let r = 0; r < 8; r++) {
-      for (let c = 0; c < 8; c++) {
-        if (r === row && c === col) continue;
-        
-        // First check basic movement pattern
-        if (isValidMovePattern(piece, row, col, r, c)) {
-          // Then check if this move would be legal (doesn't put own king in check)
-          if (isLegalMove(row, col, r, c)) {
-            moves.push({ row: r, col: c });
-          }
-        }
-      }
-    }
-    
-    setValidMoves(moves);
-  };
-
-  // Check if a move is legal (doesn't put own king in check)
-  const isLegalMove = (fromRow, fromCol, toRow, toCol) => {
-    // Simulate the move
-    const simulatedGame = simulateMove(fromRow, fromCol, toRow, toCol);
-    
-    // Check if this move would put own king in check
-    const piece = getPieceAt(fromRow, fromCol);
-    return !isKingInCheck(simulatedGame, piece.color);
-  };
-
-  // Simulate a move and return the resulting game state
-  const simulateMove = (fromRow, fromCol, toRow, toCol) => {
-    if (!game?.pieces) return null;
-    
-    // Create a copy of the pieces array
-    const newPieces = game.pieces.map(piece => ({
-      ...piece
-    }));
-    
-    // Find the piece to move
-    const pieceIndex = newPieces.findIndex(p => p.row === fromRow && p.col === fromCol);
-    if (pieceIndex === -1) return null;
-    
-    // Remove any piece at destination (capture)
-    const capturedIndex = newPieces.findIndex(p => p.row === toRow && p.col === toCol);
-    if (capturedIndex !== -1) {
-      newPieces.splice(capturedIndex, 1);
-    }
-    
-    // Move the piece
-    newPieces[pieceIndex] = {
-      ...newPieces[pieceIndex],
-      row: toRow,
-      col: toCol
-    };
-    
-    return { pieces: newPieces };
-  };
-
-  // Check if a king is in check in a given game state
-  const isKingInCheck = (gameState, kingColor) => {
-    if (!gameState?.pieces) return false;
-    
-    // Find the king
-    const king = gameState.pieces.find(p => p.type === 'KING' && p.color === kingColor);
-    if (!king) return false;
-    
-    // Check if any opponent piece can attack the king
-    const opponentColor = kingColor === 'WHITE' ? 'BLACK' : 'WHITE';
-    const opponentPieces = gameState.pieces.filter(p => p.color === opponentColor);
-    
-    for (let piece of opponentPieces) {
-      if (canPieceAttackSquare(gameState, piece, king.row, king.col)) {
-        return true;
-      }
-    }
-    return false;
-  };
-
-  // Check if a piece can attack a specific square
-  const canPieceAttackSquare = (gameState, piece, targetRow, targetCol) => {
-    const rowDiff = Math.abs(targetRow - piece.row);
-    const colDiff = Math.abs(targetCol - piece.col);
-    
-    switch (piece.type) {
-      case 'PAWN':
-        const direction = piece.color === 'WHITE' ? -1 : 1;
-        const rowDiffSigned = targetRow - piece.row;
-        // Pawns attack diagonally
-        return colDiff === 1 && rowDiffSigned === direction;
-        
-      case 'ROOK':
-        return (rowDiff === 0 || colDiff === 0) && isPathClearInGame(gameState, piece.row, piece.col, targetRow, targetCol);
-        
-      case 'BISHOP':
-        return (rowDiff === colDiff) && isPathClearInGame(gameState, piece.row, piece.col, targetRow, targetCol);
-        
-      case 'QUEEN':
-        return (rowDiff === 0 || colDiff === 0 || rowDiff === colDiff) && 
-               isPathClearInGame(gameState, piece.row, piece.col, targetRow, targetCol);
-               
-      case 'KING':
-        return rowDiff <= 1 && colDiff <= 1;
-        
-      case 'KNIGHT':
-        return (rowDiff === 2 && colDiff === 1) || (rowDiff === 1 && colDiff === 2);
-        
-      default:
-        return false;
-    }
-  };
-
-  // Check if path is clear in a given game state
-  const isPathClearInGame = (gameState, fromRow, fromCol, toRow, toCol) => {
-    const rowStep = Math.sign(toRow - fromRow);
-    const colStep = Math.sign(toCol - fromCol);
-    
-    let currentRow = fromRow + rowStep;
-    let currentCol = fromCol + colStep;
-    
-    while (currentRow !== toRow || currentCol !== toCol) {
-      if (gameState.pieces.find(p => p.row === currentRow && p.col === currentCol)) {
-        return false;
-      }
-      currentRow += rowStep;
-      currentCol += colStep;
-    }
-    
-    return true;
-  };
-
-  const isValidMovePattern = (piece, fromRow, fromCol, toRow, toCol) => {
-    const rowDiff = Math.abs(toRow - fromRow);
-    const colDiff = Math.abs(toCol - fromCol);
-    const targetPiece = getPieceAt(toRow, toCol);
-    
-    // Can't capture your own pieces
-    if (targetPiece && targetPiece.color === piece.color) {
-      return false;
-    }
-    
-    // Basic movement patterns (without considering check)
-    switch (piece.type) {
-      case 'PAWN':
-        const direction = piece.color === 'WHITE' ? -1 : 1;
-        const rowDiffSigned = toRow - fromRow;
-        
-        if (colDiff === 0) {
-          // Forward moves
-          if (rowDiffSigned === direction && !targetPiece) return true;
-          if (piece.hasMoved === false && rowDiffSigned === 2 * direction && !targetPiece && !getPieceAt(fromRow + direction, fromCol)) {
-            return true;
-          }
-        }
-        else if (colDiff === 1 && rowDiffSigned === direction && targetPiece) {
-          // Diagonal captures only
-          return true;
-        }
-        return false;
-        
-      case 'ROOK':
-        return (rowDiff === 0 || colDiff === 0) && isPathClearSimple(fromRow, fromCol, toRow, toCol);
-        
-      case 'BISHOP':
-        return (rowDiff === colDiff) && isPathClearSimple(fromRow, fromCol, toRow, toCol);
-        
-      case 'QUEEN':
-        return (rowDiff === 0 || colDiff === 0 || rowDiff === colDiff) && 
-               isPathClearSimple(fromRow, fromCol, toRow, toCol);
-               
-      case 'KING':
-        return rowDiff <= 1 && colDiff <= 1;
-        
-      case 'KNIGHT':
-        return (rowDiff === 2 && colDiff === 1) || (rowDiff === 1 && colDiff === 2);
-        
-      default:
-        return false;
-    }
-  };
-
-  const isPathClearSimple = (fromRow, fromCol, toRow, toCol) => {
-    const rowStep = Math.sign(toRow - fromRow);
-    const colStep = Math.sign(toCol - fromCol);
-    
-    let currentRow = fromRow + rowStep;
-    let currentCol = fromCol + colStep;
-    
-    while (currentRow !== toRow || currentCol !== toCol) {
-      if (getPieceAt(currentRow, currentCol)) {
-        return false;
-      }
-      currentRow += rowStep;
-      currentCol += colStep;
+    try {
+      const { data } = await client.query({
+        query: LEGAL_MOVES,
+        variables: { gameId, fromRow: row, fromCol: col },
+        fetchPolicy: 'network-only',
+      });
+      setValidMoves(data.legalMoves.map(move => ({ row: move.toRow, col: move.toCol })));
+    } catch (error) {
+      console.error('Error fetching legal moves:', error);
+      setValidMoves([]);
     }
-    
-    return true;
   };
 
   const getPieceAt = (row, col) => {
@@ -427,7 +173,7 @@ const getCurrentPlayerDisplay = () => {
 };
 
   const isBoardDisabled = () => {
-    return isAIThinking || (game?.gameType === 'HUMAN_VS_AI' && aiTurnData?.isAITurn);
+    return isAIThinking;
   };
 
   if (!game) return <div>Loading...</div>;
@@ -75,6 +75,19 @@ const GameModal = ({ type, isVisible, onOk, onPlayAgain, onMainMenu, winner, onG
             </>
           )}
 
+          {type === 'draw' && (
+            <>
+              <h2>Draw!</h2>
+              <p>Neither side can force a win from here.</p>
+              <div className="modal-buttons">
+                <button onClick={handlePlayAgain} className="modal-button" disabled={creatingGame}>
+                  {creatingGame ? 'Creating...' : 'Play Again'}
+                </button>
+                <button onClick={onMainMenu} className="modal-button">Main Menu</button>
+              </div>
+            </>
+          )}
+
           {type === 'newGame' && (
             <>
               <h2>New Chess Game</h2>
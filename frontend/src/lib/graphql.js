@@ -1,8 +1,13 @@
-import { ApolloClient, InMemoryCache, createHttpLink } from '@apollo/client';
+import { ApolloClient, InMemoryCache, createHttpLink, split } from '@apollo/client';
+import { GraphQLWsLink } from '@apollo/client/link/subscriptions';
+import { getMainDefinition } from '@apollo/client/utilities';
+import { createClient } from 'graphql-ws';
 
 
+const graphqlUrl = process.env.NEXT_PUBLIC_GRAPHQL_URL || 'http://localhost:8080/graphql';
+
 const httpLink = createHttpLink({
-  uri: process.env.NEXT_PUBLIC_GRAPHQL_URL || 'http://localhost:8080/graphql',
+  uri: graphqlUrl,
   headers: {
     'Content-Type': 'application/json',
   },
@@ -11,8 +16,23 @@ const httpLink = createHttpLink({
   },
 });
 
+// Subscriptions (game updates, AI replies) go over WebSocket; queries and mutations stay on HTTP.
+// The WebSocket only exists in the browser, not during server-side rendering.
+const link = typeof window === 'undefined'
+  ? httpLink
+  : split(
+      ({ query }) => {
+        const definition = getMainDefinition(query);
+        return definition.kind === 'OperationDefinition' && definition.operation === 'subscription';
+      },
+      new GraphQLWsLink(createClient({
+        url: process.env.NEXT_PUBLIC_GRAPHQL_WS_URL || graphqlUrl.replace(/^http/, 'ws'),
+      })),
+      httpLink,
+    );
+
 const client = new ApolloClient({
-  link: httpLink,
+  link,
   cache: new InMemoryCache({
     typePolicies: {
       Query: {
@@ -1,5 +1,5 @@
 import { useState, useEffect } from 'react';
-import { useMutation, useQuery } from '@apollo/client';
+import { useMutation, useQuery, useSubscription } from '@apollo/client';
 import { gql } from '@apollo/client';
 import ChessBoard from '../components/ChessBoard';
 import GameModal from '../components/GameModal';
@@ -47,6 +47,29 @@ const GET_GAME = gql`
   }
 `;
 
+// Same fields as GET_GAME, so each pushed update refreshes the cached game in place
+const GAME_UPDATED = gql`
+  subscription GameUpdated($gameId: ID!) {
+    gameUpdated(gameId: $gameId) {
+      id
+      status
+      currentPlayer
+      winner
+      gameType
+      aiDifficulty
+      aiColor
+      moveCount
+      pieces {
+        type
+        color
+        row
+        col
+        hasMoved
+      }
+    }
+  }
+`;
+
 export default function Home() {
   const [gameId, setGameId] = useState(null);
   const [error, setError] = useState(null);
@@ -57,7 +80,19 @@ export default function Home() {
     variables: { gameId },
     skip: !gameId,
     fetchPolicy: 'cache-and-network',
-    pollInterval: gameId ? 1000 : 0,
+  });
+
+  // Moves, status changes and the AI's reply are pushed by the server instead of polled
+  useSubscription(GAME_UPDATED, {
+    variables: { gameId },
+    skip: !gameId,
+    onData: ({ data }) => {
+      const game = data.data?.gameUpdated;
+      if (game?.status === 'CHECKMATE' || game?.status === 'DRAW') {
+        setModalState({ type: game.status === 'DRAW' ? 'draw' : 'checkmate', visible: true });
+        setShowCheckMessage(false);
+      }
+    },
   });
 
   // Check for check condition only when move count changes (after moves are made)
@@ -176,8 +211,8 @@ export default function Home() {
   const handleMoveComplete = () => {
     refetch().then((result) => {
       const game = result.data.getGame;
-      if (game.status === 'CHECKMATE') {
-        setModalState({ type: 'checkmate', visible: true });
+      if (game.status === 'CHECKMATE' || game.status === 'DRAW') {
+        setModalState({ type: game.status === 'DRAW' ? 'draw' : 'checkmate', visible: true });
         setShowCheckMessage(false);
       }
       // Check detection for regular check is handled by useEffect
@@ -0,0 +1,28 @@
+package com.chess.benchmark;
+
+import com.chess.config.AIProperties;
+import com.chess.repository.GameRepository;
+import com.chess.repository.InMemoryGameRepository;
+import com.chess.service.ChessAI;
+import com.chess.service.ChessMetrics;
+import com.chess.service.ChessService;
+import com.chess.service.GameEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+// Just the services the benchmarks call, wired without starting the web application
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {}
+
+    public static AnnotationConfigApplicationContext create(AIProperties properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(AIProperties.class, () -> properties);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(GameRepository.class, InMemoryGameRepository::new);
+        context.register(ChessAI.class, ChessService.class, ChessMetrics.class, GameEventPublisher.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chess.benchmark;
+
+import com.chess.engine.Bitboards;
+import com.chess.engine.Fen;
+import com.chess.engine.Position;
+import com.chess.model.Game;
+import com.chess.model.Piece;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed positions shared by the benchmarks, so numbers stay comparable between runs
+public enum BenchmarkPositions {
+
+    // 1.e4 e5 2.Nf3 Nc6
+    OPENING("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w", 4),
+    // "Kiwipete", a tactically busy middlegame with many legal moves
+    MIDDLEGAME("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w", 30),
+    // Rook and pawns ending ("position 3" of the perft suite)
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w", 60);
+
+    private final String fen;
+    private final int moveCount;
+
+    BenchmarkPositions(String fen, int moveCount) {
+        this.fen = fen;
+        this.moveCount = moveCount;
+    }
+
+    public Position position() {
+        return Fen.parse(fen);
+    }
+
+    // A human-vs-AI game in this position with the AI to move
+    public Game game() {
+        Position position = position();
+        List<Piece> pieces = new ArrayList<>();
+        for (int square = 0; square < 64; square++) {
+            int code = position.pieceAt(square);
+            if (code != Position.EMPTY) {
+                Piece piece = new Piece(Position.typeOf(code), Position.colorOf(code),
+                                        Bitboards.rowOf(square), Bitboards.colOf(square));
+                piece.setHasMoved(position.hasMoved(square));
+                pieces.add(piece);
+            }
+        }
+
+        Game game = new Game();
+        game.setId(1L);
+        game.setPieces(pieces);
+        game.setCurrentPlayer(position.getSideToMove());
+        game.setMoveCount(moveCount);
+        game.setGameType(Game.GameType.HUMAN_VS_AI);
+        game.setAiColor(position.getSideToMove());
+        game.publishSnapshot();
+        return game;
+    }
+}
@@ -0,0 +1,87 @@
+package com.chess.benchmark;
+
+import com.chess.config.AIProperties;
+import com.chess.engine.Bitboards;
+import com.chess.engine.Evaluation;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
+import com.chess.model.Game;
+import com.chess.service.ChessService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import java.util.concurrent.TimeUnit;
+
+// Per-call cost of the move validation, generation, game-end and evaluation hot paths
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    private BenchmarkPositions phase;
+
+    private AnnotationConfigApplicationContext context;
+    private ChessService chessService;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private Game game;
+    private Position position;
+    private int fromRow, fromCol, toRow, toCol;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.create(new AIProperties());
+        chessService = context.getBean(ChessService.class);
+        game = phase.game();
+        position = phase.position();
+
+        // Validate the last generated move, which the validator reaches after the most work
+        int[] legal = game.getLegalMoves();
+        int move = legal[legal.length - 1];
+        fromRow = Bitboards.rowOf(MoveGenerator.from(move));
+        fromCol = Bitboards.colOf(MoveGenerator.from(move));
+        toRow = Bitboards.rowOf(MoveGenerator.to(move));
+        toCol = Bitboards.colOf(MoveGenerator.to(move));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return chessService.isValidMove(game, fromRow, fromCol, toRow, toCol);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+    }
+
+    // Uncached: resetting the side to move drops the game's legal-move cache first
+    @Benchmark
+    public Game.GameStatus checkForGameEnd() {
+        game.setCurrentPlayer(game.getCurrentPlayer());
+        chessService.checkForGameEnd(game);
+        return game.getStatus();
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluation.evaluate(position, position.getSideToMove());
+    }
+}
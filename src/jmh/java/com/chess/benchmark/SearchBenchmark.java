@@ -0,0 +1,77 @@
+package com.chess.benchmark;
+
+import com.chess.config.AIProperties;
+import com.chess.model.Game;
+import com.chess.service.ChessAI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import java.util.concurrent.TimeUnit;
+
+// Time for ChessAI.getBestMove to pick a move at each difficulty. Searches are bounded by depth,
+// not by the clock, on a single thread and a transposition table cleared before every call, so
+// each measurement does the same work.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"NORMAL", "HARD", "IMPOSSIBLE"})
+    private Game.AIDifficulty difficulty;
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    private BenchmarkPositions phase;
+
+    private AnnotationConfigApplicationContext context;
+    private ChessAI chessAI;
+    private Game game;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AIProperties properties = new AIProperties();
+        properties.setTranspositionTableMb(16);
+        properties.getLevels().put(Game.AIDifficulty.HARD, level(4));
+        properties.getLevels().put(Game.AIDifficulty.IMPOSSIBLE, level(6));
+
+        context = BenchmarkContext.create(properties);
+        chessAI = context.getBean(ChessAI.class);
+        game = phase.game();
+    }
+
+    @Setup(Level.Invocation)
+    public void coldTable() {
+        chessAI.clearTranspositionTable();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ChessAI.AIMove getBestMove() {
+        return chessAI.getBestMove(game.getSnapshot(), difficulty);
+    }
+
+    private static AIProperties.Level level(int maxDepth) {
+        AIProperties.Level level = new AIProperties.Level();
+        level.setMaxDepth(maxDepth);
+        level.setTimeBudgetMs(TimeUnit.MINUTES.toMillis(10));
+        level.setThreads(1);
+        return level;
+    }
+}
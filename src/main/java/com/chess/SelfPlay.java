@@ -0,0 +1,194 @@
+package com.chess;
+
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.model.Piece;
+import com.chess.service.ChessService;
+import com.chess.service.GameIdAllocator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless AI-vs-AI self-play for capacity planning and strength regressions. Boots the
+// application without the web server, pondering or persistence and plays AI_VS_AI games between
+// two difficulty levels, several at once, alternating colors. Moves go through
+// ChessService.makeAIMove like a served game's, so latency and search speed are what players
+// would see at that load. Run with
+// `mvn -Pselfplay verify -Dselfplay.args="<games> <levelA> <levelB> [threads] [maxPlies]"`;
+// arguments starting with -- are Spring properties, e.g. --chess.ai.levels.hard.time-budget-ms=200.
+//
+// There is no repetition or fifty-move rule, so a game still going at maxPlies counts as a draw.
+public final class SelfPlay {
+
+    public static final int DEFAULT_MAX_PLIES = 300;
+
+    private final ChessService chessService;
+    private final GameIdAllocator gameIds;
+    private final Game.AIDifficulty levelA;
+    private final Game.AIDifficulty levelB;
+    private final int maxPlies;
+
+    // Results from levelA's side
+    private final AtomicInteger wins = new AtomicInteger();
+    private final AtomicInteger draws = new AtomicInteger();
+    private final AtomicInteger losses = new AtomicInteger();
+    private final AtomicInteger capped = new AtomicInteger();
+
+    // Move counts and latencies, [0] for levelA's moves and [1] for levelB's
+    private final LongAdder[] moves = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] moveNanos = {new LongAdder(), new LongAdder()};
+    private final LongAccumulator[] maxMoveNanos = {new LongAccumulator(Math::max, 0), new LongAccumulator(Math::max, 0)};
+
+    public SelfPlay(ChessService chessService, GameIdAllocator gameIds, Game.AIDifficulty levelA,
+                    Game.AIDifficulty levelB, int maxPlies) {
+        this.chessService = chessService;
+        this.gameIds = gameIds;
+        this.levelA = levelA;
+        this.levelB = levelB;
+        this.maxPlies = maxPlies;
+    }
+
+    // Plays one game to the end or to maxPlies; levelA has white in even-numbered games
+    public void play(int index) {
+        Game game = chessService.initializeGame();
+        game.setId(gameIds.next());
+        game.setGameType(Game.GameType.AI_VS_AI);
+        game.setAiDifficulty(levelA);
+        game.publishSnapshot();
+        Piece.Color colorA = index % 2 == 0 ? Piece.Color.WHITE : Piece.Color.BLACK;
+
+        int plies = 0;
+        while (game.getSnapshot().getStatus() == Game.GameStatus.ACTIVE && plies < maxPlies) {
+            int side = game.getSnapshot().getCurrentPlayer() == colorA ? 0 : 1;
+            long start = System.nanoTime();
+            Move move = chessService.makeAIMove(game, side == 0 ? levelA : levelB);
+            long nanos = System.nanoTime() - start;
+            if (move == null) {
+                break;
+            }
+            moves[side].increment();
+            moveNanos[side].add(nanos);
+            maxMoveNanos[side].accumulate(nanos);
+            plies++;
+        }
+
+        Game snapshot = game.getSnapshot();
+        if (snapshot.getStatus() == Game.GameStatus.ACTIVE) {
+            capped.incrementAndGet();
+            draws.incrementAndGet();
+        } else if (snapshot.getWinner() == null) {
+            draws.incrementAndGet();
+        } else if (snapshot.getWinner() == colorA) {
+            wins.incrementAndGet();
+        } else {
+            losses.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        List<String> positional = new ArrayList<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("--") ? springArgs : positional).add(arg);
+        }
+        if (positional.size() < 3) {
+            System.err.println("Usage: SelfPlay <games> <levelA> <levelB> [threads] [maxPlies] [--spring.property=value...]");
+            return;
+        }
+        int games = Integer.parseInt(positional.get(0));
+        Game.AIDifficulty levelA = Game.AIDifficulty.valueOf(positional.get(1).toUpperCase());
+        Game.AIDifficulty levelB = Game.AIDifficulty.valueOf(positional.get(2).toUpperCase());
+        int threads = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : Runtime.getRuntime().availableProcessors();
+        int maxPlies = positional.size() > 4 ? Integer.parseInt(positional.get(4)) : DEFAULT_MAX_PLIES;
+
+        // System properties outrank application.properties; --arguments still outrank these
+        setDefault("chess.store.type", "memory");
+        setDefault("chess.ai.ponder.enabled", "false");
+        setDefault("logging.level.root", "WARN");
+        setDefault("logging.level.com.chess", "WARN");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChessApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(springArgs.toArray(new String[0]));
+        try {
+            SelfPlay selfPlay = new SelfPlay(context.getBean(ChessService.class), context.getBean(GameIdAllocator.class),
+                                             levelA, levelB, maxPlies);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            double nodesBefore = searchNodes(registry);
+            double searchSecondsBefore = searchSeconds(registry);
+
+            System.out.printf("Playing %,d games, %s vs %s, on %d threads (max %d plies)%n",
+                              games, levelA, levelB, threads, maxPlies);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                results.add(pool.submit(() -> selfPlay.play(index)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+
+            selfPlay.report(seconds, games, searchNodes(registry) - nodesBefore,
+                            searchSeconds(registry) - searchSecondsBefore);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void report(double seconds, int games, double nodes, double searchSeconds) {
+        long totalMoves = moves[0].sum() + moves[1].sum();
+        System.out.printf("%,d games in %.3f s: %.3f games/s, %,d moves (%.1f per game), %d stopped at %d plies%n",
+                          games, seconds, games / seconds, totalMoves, (double) totalMoves / Math.max(1, games),
+                          capped.get(), maxPlies);
+        reportLatency("A " + levelA, 0);
+        reportLatency("B " + levelB, 1);
+        System.out.printf("Search: %,.0f nodes, %,.0f nodes/s per searching thread, %,.0f nodes/s overall%n",
+                          nodes, nodes / Math.max(1e-9, searchSeconds), nodes / seconds);
+        int halfPoints = 2 * wins.get() + draws.get();
+        System.out.printf("%s vs %s: W %d / D %d / L %d, score %.1f%%%n", levelA, levelB,
+                          wins.get(), draws.get(), losses.get(), 50.0 * halfPoints / Math.max(1, games));
+    }
+
+    private void reportLatency(String label, int side) {
+        long count = moves[side].sum();
+        System.out.printf("Move latency %s: %,d moves, avg %.2f ms, max %.2f ms%n", label, count,
+                          moveNanos[side].sum() / 1e6 / Math.max(1, count), maxMoveNanos[side].get() / 1e6);
+    }
+
+    private static double searchNodes(MeterRegistry registry) {
+        Counter counter = registry.find("chess.ai.search.nodes").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    // Time spent choosing moves at every difficulty, book and one-ply moves included
+    private static double searchSeconds(MeterRegistry registry) {
+        return registry.find("chess.ai.search").timers().stream()
+                       .mapToDouble(timer -> timer.totalTime(TimeUnit.SECONDS))
+                       .sum();
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.chess;
+
+import com.chess.model.Game;
+import com.chess.model.GameCodec;
+import com.chess.model.LegalMove;
+import com.chess.repository.MoveJournal;
+import com.chess.resolver.GameResolver;
+import com.chess.service.GameCache;
+import com.chess.service.GameIdAllocator;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Crash-recovery check for the file game store, the way Perft checks move generation. Plays
+// games through GameResolver against a store in a scratch directory, restarts the application
+// on copies of that directory after damaging the journal in different ways, and compares every
+// game it gets back with what was played. Covers:
+// - GameCodec: every game encoded and decoded
+// - eviction: more games than max-resident, so most moves load a game back from the store
+// - journal segments: enough moves to seal one, which the writer must archive
+// - replay: restarts that rebuild games from snapshots plus journal records
+// - a torn and a garbled last record, which must end the journal and cost exactly that move
+// - a record that doesn't replay, whose game must go to quarantine/ and nothing else, and whose
+//   id must not be issued again
+// Run with `mvn -Pstorecheck verify [-Dstorecheck.args=<directory>]`; the directory is kept
+// for inspection when a check fails.
+public final class StoreCheck {
+
+    private static final int GAMES = 300;
+    private static final int MAX_PLIES = 150;
+    private static final int MAX_RESIDENT = 40;
+    // Game ids start at 1
+    private static final long NONE = 0;
+
+    private final Path root;
+    private final Random random = new Random(42);
+    // What was played, by game id, as fingerprints of the published snapshots
+    private final Map<Long, String> expected = new LinkedHashMap<>();
+    private int failures;
+
+    private StoreCheck(Path root) {
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("storecheck");
+        StoreCheck check = new StoreCheck(root);
+        check.run();
+        if (check.failures > 0) {
+            throw new RuntimeException("Store check failed: " + check.failures + " check(s), files in " + root);
+        }
+        delete(root);
+        System.out.println("All store checks passed");
+    }
+
+    private void run() {
+        Path played = root.resolve("played");
+        play(played);
+        Path torn = copy(played, "torn");
+        Path garbled = copy(played, "garbled");
+        Path unreplayable = copy(played, "unreplayable");
+
+        System.out.println("== restart: snapshots plus journal replay");
+        restart(played, NONE, 0, context -> { });
+        System.out.println("== second restart: snapshots only");
+        restart(played, NONE, 0, context -> { });
+
+        System.out.println("== torn last record");
+        long[] record = damageLastRecord(torn, (buffer, offset) -> {
+            for (int i = 16; i < MoveJournal.RECORD_BYTES; i++) {
+                buffer.put(offset + i, (byte) 0);
+            }
+        });
+        restart(torn, record[0], (int) record[1] - 1, context -> { });
+
+        System.out.println("== garbled last record");
+        record = damageLastRecord(garbled, (buffer, offset) -> buffer.put(offset + 3, (byte) (buffer.get(offset + 3) ^ 0x55)));
+        restart(garbled, record[0], (int) record[1] - 1, context -> { });
+
+        System.out.println("== last record checksums but doesn't replay (the replay error logged is expected)");
+        // The to square becomes the from square, with a valid checksum
+        record = damageLastRecord(unreplayable, (buffer, offset) -> {
+            buffer.put(offset + 22, buffer.get(offset + 21));
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset, 24));
+            buffer.putInt(offset + 24, (int) crc.getValue());
+        });
+        long quarantined = record[0];
+        restart(unreplayable, quarantined, -1, context -> {
+            report("game " + quarantined + " quarantined",
+                   hasQuarantined(unreplayable, quarantined));
+            // It held the highest id, so only the quarantine remembers it
+            long next = context.getBean(GameIdAllocator.class).next();
+            report("next game id " + next + " is past the quarantined game's", next > quarantined);
+        });
+    }
+
+    // Plays GAMES games round robin with random legal moves, one of them to checkmate, then
+    // starts one more game and makes a single move in it, so that move is the journal's last
+    // record
+    private void play(Path directory) {
+        System.out.println("== play " + GAMES + " games, at most " + MAX_RESIDENT + " in memory");
+        try (ConfigurableApplicationContext context = boot(directory)) {
+            GameResolver resolver = context.getBean(GameResolver.class);
+            List<Long> active = new ArrayList<>();
+
+            // Fool's mate
+            long mated = resolver.createGame("HUMAN_VS_HUMAN", null).getId();
+            resolver.makeMove(mated, 6, 5, 5, 5);
+            resolver.makeMove(mated, 1, 4, 3, 4);
+            resolver.makeMove(mated, 6, 6, 4, 6);
+            resolver.makeMove(mated, 0, 3, 4, 7);
+            expected.put(mated, null);
+
+            for (int i = 1; i < GAMES; i++) {
+                long id = resolver.createGame("HUMAN_VS_HUMAN", null).getId();
+                active.add(id);
+                expected.put(id, null);
+            }
+            int moves = 4;
+            for (int ply = 0; ply < MAX_PLIES && !active.isEmpty(); ply++) {
+                for (int i = active.size() - 1; i >= 0; i--) {
+                    long id = active.get(i);
+                    List<LegalMove> legal = resolver.allLegalMoves(id);
+                    if (legal.isEmpty() || resolver.getGame(id).getStatus() != Game.GameStatus.ACTIVE) {
+                        active.remove(i);
+                        continue;
+                    }
+                    LegalMove move = legal.get(random.nextInt(legal.size()));
+                    resolver.makeMove(id, move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+                    moves++;
+                }
+            }
+
+            GameCache cache = context.getBean(GameCache.class);
+            report("mated game finished", resolver.getGame(mated).getStatus() == Game.GameStatus.CHECKMATE);
+            report("no more than " + MAX_RESIDENT + " games resident (" + cache.getResidentCount() + ")",
+                   cache.getResidentCount() <= MAX_RESIDENT);
+
+            // Evicted games are loaded back here, so this also checks eviction and reload
+            int codecMismatches = 0;
+            for (Long id : expected.keySet()) {
+                Game game = resolver.getGame(id);
+                expected.put(id, fingerprint(game));
+                codecMismatches += fingerprint(GameCodec.decode(GameCodec.encode(game))).equals(fingerprint(game)) ? 0 : 1;
+            }
+            report(expected.size() + " games through GameCodec", codecMismatches == 0);
+
+            // Last, so nothing evicts this game and writes its snapshot, which would cover the record
+            long last = resolver.createGame("HUMAN_VS_HUMAN", null).getId();
+            resolver.makeMove(last, 6, 4, 4, 4);
+            expected.put(last, fingerprint(resolver.getGame(last)));
+            moves++;
+            report(moves + " moves sealed a journal segment that was archived", awaitArchived(directory));
+        }
+    }
+
+    // Boots on the directory and compares every game with what was played. The damaged game, if
+    // not NONE, must come back with damagedMoves moves, or not at all when that is -1.
+    private void restart(Path directory, long damaged, int damagedMoves, Consumer<ConfigurableApplicationContext> more) {
+        try (ConfigurableApplicationContext context = boot(directory)) {
+            GameResolver resolver = context.getBean(GameResolver.class);
+            int compared = 0;
+            int mismatches = 0;
+            for (Map.Entry<Long, String> game : expected.entrySet()) {
+                Game recovered = resolver.getGame(game.getKey());
+                if (game.getKey() == damaged) {
+                    report("game " + damaged + " came back with " + (damagedMoves < 0 ? "nothing" : damagedMoves + " moves"),
+                           damagedMoves < 0 ? recovered == null : recovered != null && recovered.getMoveCount() == damagedMoves);
+                    continue;
+                }
+                compared++;
+                if (recovered == null || !fingerprint(recovered).equals(game.getValue())) {
+                    if (mismatches++ < 5) {
+                        System.out.println("  game " + game.getKey() + " expected " + game.getValue());
+                        System.out.println("  but was " + (recovered == null ? null : fingerprint(recovered)));
+                    }
+                }
+            }
+            report(compared + (damaged == NONE ? " games" : " other games") + " recovered exactly", mismatches == 0);
+            more.accept(context);
+        }
+    }
+
+    private ConfigurableApplicationContext boot(Path directory) {
+        return new SpringApplicationBuilder(ChessApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--chess.store.type=file",
+                     "--chess.store.directory=" + directory,
+                     "--chess.store.journal-segment-mb=1",
+                     // Only games that end and journal segments that fill up are snapshotted
+                     "--chess.store.snapshot-every-moves=100000",
+                     "--chess.games.max-resident=" + MAX_RESIDENT,
+                     "--chess.ai.ponder.enabled=false",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.chess=ERROR");
+    }
+
+    private interface Damage {
+        void apply(ByteBuffer buffer, int offset);
+    }
+
+    // Damages the last record of the newest journal segment; returns its game id and move number
+    private static long[] damageLastRecord(Path directory, Damage damage) {
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                                .max(Path::compareTo).orElseThrow();
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                channel.read(buffer, 0);
+                int offset = 0;
+                while (offset < buffer.capacity() && buffer.get(offset + 20) != 0) {
+                    offset += MoveJournal.RECORD_BYTES;
+                }
+                offset -= MoveJournal.RECORD_BYTES;
+                long[] record = {buffer.getLong(offset), buffer.getInt(offset + 16)};
+                damage.apply(buffer, offset);
+                channel.write(buffer.clear(), 0);
+                channel.force(true);
+                return record;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean awaitArchived(Path directory) {
+        Path archive = directory.resolve("archive");
+        for (int i = 0; i < 100; i++) {
+            try (Stream<Path> files = Files.isDirectory(archive) ? Files.walk(archive) : Stream.empty()) {
+                if (files.anyMatch(file -> file.getFileName().toString().startsWith("journal-"))) {
+                    return true;
+                }
+                Thread.sleep(50);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasQuarantined(Path directory, long gameId) {
+        try (Stream<Path> files = Files.walk(directory.resolve("quarantine"))) {
+            return files.anyMatch(file -> file.getFileName().toString().equals(gameId + ".journal"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Everything a snapshot holds, history times included
+    private static String fingerprint(Game game) {
+        StringBuilder out = new StringBuilder()
+                .append(game.getId()).append(' ').append(game.getGameType()).append(' ').append(game.getCreatedAtMillis())
+                .append(' ').append(game.getStatus()).append(' ').append(game.getWinner())
+                .append(' ').append(game.getCurrentPlayer()).append(' ').append(game.getMoveCount())
+                .append(' ').append(game.getBoard()).append(' ').append(Long.toHexString(game.getPosition().movedMask()));
+        for (int i = 0; i < game.getHistorySize(); i++) {
+            out.append(' ').append(Integer.toHexString(game.getPackedMove(i))).append('@').append(game.getMoveTimeMillis(i));
+        }
+        return out.toString();
+    }
+
+    private void report(String check, boolean ok) {
+        System.out.println("  " + check + (ok ? "  ok" : "  FAILED"));
+        failures += ok ? 0 : 1;
+    }
+
+    private Path copy(Path source, String name) {
+        Path target = root.resolve(name);
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(source.relativize(file).toString()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
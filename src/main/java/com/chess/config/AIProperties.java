@@ -0,0 +1,123 @@
+package com.chess.config;
+
+import com.chess.model.Game;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.ai")
+public class AIProperties {
+    
+    // Search budget per difficulty, e.g. chess.ai.levels.hard.max-depth=6
+    private Map<Game.AIDifficulty, Level> levels = new EnumMap<>(Game.AIDifficulty.class);
+    
+    // Memory for the transposition table shared by all searches
+    private int transpositionTableMb = 64;
+    
+    // Opening book file; built from the bundled openings PGN on startup if it doesn't exist yet.
+    // Empty disables the book.
+    private String openingBook = "";
+    
+    // Endgame tablebase directory; the endings listed are built into it on startup if missing,
+    // any other tables found there are used too. Empty disables the tablebases.
+    private String tablebaseDirectory = "";
+    private List<String> tablebaseEndings = new ArrayList<>();
+    
+    // End a game as a draw once the tablebases show neither side can force a win
+    private boolean adjudicateTablebaseDraws = false;
+    
+    private Scheduler scheduler = new Scheduler();
+    
+    private Ponder ponder = new Ponder();
+    
+    public Map<Game.AIDifficulty, Level> getLevels() { return levels; }
+    public void setLevels(Map<Game.AIDifficulty, Level> levels) { this.levels = levels; }
+    
+    public int getTranspositionTableMb() { return transpositionTableMb; }
+    public void setTranspositionTableMb(int transpositionTableMb) { this.transpositionTableMb = transpositionTableMb; }
+    
+    public String getOpeningBook() { return openingBook; }
+    public void setOpeningBook(String openingBook) { this.openingBook = openingBook; }
+    
+    public String getTablebaseDirectory() { return tablebaseDirectory; }
+    public void setTablebaseDirectory(String tablebaseDirectory) { this.tablebaseDirectory = tablebaseDirectory; }
+    
+    public List<String> getTablebaseEndings() { return tablebaseEndings; }
+    public void setTablebaseEndings(List<String> tablebaseEndings) { this.tablebaseEndings = tablebaseEndings; }
+    
+    public boolean isAdjudicateTablebaseDraws() { return adjudicateTablebaseDraws; }
+    public void setAdjudicateTablebaseDraws(boolean adjudicateTablebaseDraws) { this.adjudicateTablebaseDraws = adjudicateTablebaseDraws; }
+    
+    public Scheduler getScheduler() { return scheduler; }
+    public void setScheduler(Scheduler scheduler) { this.scheduler = scheduler; }
+    
+    public Ponder getPonder() { return ponder; }
+    public void setPonder(Ponder ponder) { this.ponder = ponder; }
+    
+    public Level getLevel(Game.AIDifficulty difficulty) {
+        return levels.getOrDefault(difficulty, new Level());
+    }
+    
+    public static class Level {
+        private int maxDepth = 1;
+        private long timeBudgetMs = 1000;
+        // Lazy SMP search threads, 0 for every available core. 1 means a single search thread, not
+        // reproducible moves: the transposition table is shared by every game and kept between
+        // turns, the time budget stops the search, and book moves are picked at random.
+        private int threads = 1;
+        // Play book moves, when the position is in the opening book, instead of searching
+        private boolean useOpeningBook = false;
+        // Play endings covered by the tablebases perfectly instead of searching
+        private boolean useTablebases = false;
+        
+        public int getMaxDepth() { return maxDepth; }
+        public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+        
+        public long getTimeBudgetMs() { return timeBudgetMs; }
+        public void setTimeBudgetMs(long timeBudgetMs) { this.timeBudgetMs = timeBudgetMs; }
+        
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        
+        public boolean isUseOpeningBook() { return useOpeningBook; }
+        public void setUseOpeningBook(boolean useOpeningBook) { this.useOpeningBook = useOpeningBook; }
+        
+        public boolean isUseTablebases() { return useTablebases; }
+        public void setUseTablebases(boolean useTablebases) { this.useTablebases = useTablebases; }
+    }
+    
+    public static class Scheduler {
+        // Concurrent AI searches; 0 uses every available core
+        private int threads = 0;
+        // AI jobs allowed to wait beyond the running ones before new AI moves are refused
+        private int queueCapacity = 1000;
+        // Artificial "thinking" delay before the AI replies
+        private long moveDelayMs = 500;
+        
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public long getMoveDelayMs() { return moveDelayMs; }
+        public void setMoveDelayMs(long moveDelayMs) { this.moveDelayMs = moveDelayMs; }
+    }
+    
+    public static class Ponder {
+        // Search on the human's time after each AI move in HARD and IMPOSSIBLE games
+        private boolean enabled = false;
+        // Low-priority ponder searches across all games; a game that finds them all busy doesn't ponder
+        private int threads = 1;
+        
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+    }
+}
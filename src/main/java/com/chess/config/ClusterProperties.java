@@ -0,0 +1,15 @@
+package com.chess.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.cluster")
+public class ClusterProperties {
+    
+    // Unique per server (0-1023) when several share a game id space; it becomes the id prefix
+    private int nodeId = 0;
+    
+    public int getNodeId() { return nodeId; }
+    public void setNodeId(int nodeId) { this.nodeId = nodeId; }
+}
@@ -0,0 +1,32 @@
+package com.chess.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.games")
+public class GameCacheProperties {
+    
+    // Games nobody has touched for this long are evicted from memory
+    private long idleTtlMs = 30 * 60 * 1000;
+    
+    // Finished games are evicted this long after their last access
+    private long retireFinishedAfterMs = 60 * 1000;
+    
+    // Above this many games in memory, the least recently used are evicted
+    private int maxResident = 10000;
+    
+    private long sweepIntervalMs = 5000;
+    
+    public long getIdleTtlMs() { return idleTtlMs; }
+    public void setIdleTtlMs(long idleTtlMs) { this.idleTtlMs = idleTtlMs; }
+    
+    public long getRetireFinishedAfterMs() { return retireFinishedAfterMs; }
+    public void setRetireFinishedAfterMs(long retireFinishedAfterMs) { this.retireFinishedAfterMs = retireFinishedAfterMs; }
+    
+    public int getMaxResident() { return maxResident; }
+    public void setMaxResident(int maxResident) { this.maxResident = maxResident; }
+    
+    public long getSweepIntervalMs() { return sweepIntervalMs; }
+    public void setSweepIntervalMs(long sweepIntervalMs) { this.sweepIntervalMs = sweepIntervalMs; }
+}
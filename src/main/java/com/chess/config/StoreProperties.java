@@ -0,0 +1,51 @@
+package com.chess.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.store")
+public class StoreProperties {
+    
+    // "file" persists games under directory; "memory" keeps them only until the server stops
+    private String type = "file";
+    
+    private String directory = "data/games";
+    
+    // A snapshot is written every this many moves per game, so recovery replays at most that many
+    private int snapshotEveryMoves = 20;
+    
+    // How long the snapshot writer waits to gather more snapshots into one batch
+    private long flushIntervalMs = 50;
+    
+    // Size of each preallocated move journal segment
+    private int journalSegmentMb = 16;
+    
+    // Group commit: the journal is fsynced this often, so a crash loses at most this much play
+    private long journalCommitIntervalMs = 10;
+    
+    // With type "memory", evicted games are kept in byte form up to this many; past it the
+    // longest evicted are forgotten
+    private int memoryMaxGames = 100000;
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+    
+    public int getSnapshotEveryMoves() { return snapshotEveryMoves; }
+    public void setSnapshotEveryMoves(int snapshotEveryMoves) { this.snapshotEveryMoves = snapshotEveryMoves; }
+    
+    public long getFlushIntervalMs() { return flushIntervalMs; }
+    public void setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
+    
+    public int getJournalSegmentMb() { return journalSegmentMb; }
+    public void setJournalSegmentMb(int journalSegmentMb) { this.journalSegmentMb = journalSegmentMb; }
+    
+    public long getJournalCommitIntervalMs() { return journalCommitIntervalMs; }
+    public void setJournalCommitIntervalMs(long journalCommitIntervalMs) { this.journalCommitIntervalMs = journalCommitIntervalMs; }
+    
+    public int getMemoryMaxGames() { return memoryMaxGames; }
+    public void setMemoryMaxGames(int memoryMaxGames) { this.memoryMaxGames = memoryMaxGames; }
+}
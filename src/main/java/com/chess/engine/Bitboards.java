@@ -0,0 +1,112 @@
+package com.chess.engine;
+
+// Precomputed attack and line tables. Squares are indexed row * 8 + col, matching
+// Piece.getRow()/getCol(), so row 0 (black's back rank) holds squares 0-7.
+public final class Bitboards {
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+
+    // PAWN_ATTACKS[color][square] = squares attacked by a pawn of that color standing on square
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Directions 0-3 are orthogonal, 4-7 diagonal
+    private static final int[] DIR_ROW = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIR_COL = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+        for (int sq = 0; sq < 64; sq++) {
+            int row = rowOf(sq);
+            int col = colOf(sq);
+
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bitIfOnBoard(row + step[0], col + step[1]);
+            }
+
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr != 0 || dc != 0) {
+                        KING_ATTACKS[sq] |= bitIfOnBoard(row + dr, col + dc);
+                    }
+                }
+            }
+
+            // White pawns advance towards row 0, black pawns towards row 7
+            PAWN_ATTACKS[0][sq] = bitIfOnBoard(row - 1, col - 1) | bitIfOnBoard(row - 1, col + 1);
+            PAWN_ATTACKS[1][sq] = bitIfOnBoard(row + 1, col - 1) | bitIfOnBoard(row + 1, col + 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                long path = 0L;
+                int r = row + DIR_ROW[dir];
+                int c = col + DIR_COL[dir];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    int target = square(r, c);
+                    BETWEEN[sq][target] = path;
+                    path |= bit(target);
+                    r += DIR_ROW[dir];
+                    c += DIR_COL[dir];
+                }
+                RAYS[dir][sq] = path;
+            }
+        }
+    }
+
+    private Bitboards() {}
+
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int colOf(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    // Squares strictly between two squares on a shared rank, file or diagonal; 0 if not aligned
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return slide(square, occupied, 0) | slide(square, occupied, 1)
+             | slide(square, occupied, 2) | slide(square, occupied, 3);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return slide(square, occupied, 4) | slide(square, occupied, 5)
+             | slide(square, occupied, 6) | slide(square, occupied, 7);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    // Ray in one direction, cut off after the first blocker (the blocker itself is included)
+    private static long slide(int square, long occupied, int dir) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            boolean increasing = DIR_ROW[dir] * 8 + DIR_COL[dir] > 0;
+            int blocker = increasing ? Long.numberOfTrailingZeros(blockers)
+                                     : 63 - Long.numberOfLeadingZeros(blockers);
+            ray ^= RAYS[dir][blocker];
+        }
+        return ray;
+    }
+
+    private static long bitIfOnBoard(int row, int col) {
+        return (row >= 0 && row < 8 && col >= 0 && col < 8) ? bit(square(row, col)) : 0L;
+    }
+}
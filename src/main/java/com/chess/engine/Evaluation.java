@@ -0,0 +1,167 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+
+// Static evaluation shared by the one-ply NORMAL player and the alpha-beta search.
+// Material and position bonuses are kept incrementally by Position; only mobility is
+// computed at evaluation time, from attack bitboards.
+public final class Evaluation {
+
+    // Piece values for evaluation
+    public static final int PAWN_VALUE = 100;
+    public static final int KNIGHT_VALUE = 320;
+    public static final int BISHOP_VALUE = 330;
+    public static final int ROOK_VALUE = 500;
+    public static final int QUEEN_VALUE = 900;
+    public static final int KING_VALUE = 20000;
+
+    private static final int MOBILITY_WEIGHT = 10;
+
+    // Position bonus tables (for center control, development), from white's point of view
+    private static final int[][] PAWN_POSITION_BONUS = {
+        {0,  0,  0,  0,  0,  0,  0,  0},
+        {50, 50, 50, 50, 50, 50, 50, 50},
+        {10, 10, 20, 30, 30, 20, 10, 10},
+        {5,  5, 10, 25, 25, 10,  5,  5},
+        {0,  0,  0, 20, 20,  0,  0,  0},
+        {5, -5,-10,  0,  0,-10, -5,  5},
+        {5, 10, 10,-20,-20, 10, 10,  5},
+        {0,  0,  0,  0,  0,  0,  0,  0}
+    };
+
+    private static final int[][] KNIGHT_POSITION_BONUS = {
+        {-50,-40,-30,-30,-30,-30,-40,-50},
+        {-40,-20,  0,  0,  0,  0,-20,-40},
+        {-30,  0, 10, 15, 15, 10,  0,-30},
+        {-30,  5, 15, 20, 20, 15,  5,-30},
+        {-30,  0, 15, 20, 20, 15,  0,-30},
+        {-30,  5, 10, 15, 15, 10,  5,-30},
+        {-40,-20,  0,  5,  5,  0,-20,-40},
+        {-50,-40,-30,-30,-30,-30,-40,-50}
+    };
+
+    // Piece value plus position bonus, indexed by piece code - 1 and square
+    private static final int[][] PIECE_SQUARE = new int[12][64];
+
+    static {
+        for (Piece.Color color : Piece.Color.values()) {
+            for (Piece.PieceType type : Piece.PieceType.values()) {
+                int index = color.ordinal() * 6 + type.ordinal();
+                for (int sq = 0; sq < 64; sq++) {
+                    PIECE_SQUARE[index][sq] = pieceValue(type) + positionBonus(type, color, sq);
+                }
+            }
+        }
+    }
+
+    private Evaluation() {}
+
+    // Score from perspective's point of view
+    public static int evaluate(Position position, Piece.Color perspective) {
+        Piece.Color opponent = Position.opposite(perspective);
+        int score = position.material(perspective) - position.material(opponent);
+
+        // Add mobility bonus (simplified)
+        score += (mobility(position, perspective) - mobility(position, opponent)) * MOBILITY_WEIGHT;
+
+        return score;
+    }
+
+    public static int pieceSquareValue(int code, int square) {
+        return PIECE_SQUARE[code - 1][square];
+    }
+
+    // Number of pseudo-legal moves for color, counted from attack bitboards without generating them
+    public static int mobility(Position position, Piece.Color color) {
+        long own = position.pieces(color);
+        long enemy = position.pieces(Position.opposite(color));
+        long occupied = own | enemy;
+        long empty = ~occupied;
+        int count = 0;
+
+        // Pawn pushes (white moves towards row 0, i.e. lower squares) and captures
+        long pawns = position.pieces(Piece.PieceType.PAWN, color);
+        long single = color == Piece.Color.WHITE ? (pawns >>> 8) & empty : (pawns << 8) & empty;
+        count += Long.bitCount(single);
+        long unmovedPawns = pawns & ~position.movedMask();
+        long unmovedSingle = color == Piece.Color.WHITE ? (unmovedPawns >>> 8) & empty : (unmovedPawns << 8) & empty;
+        count += Long.bitCount(color == Piece.Color.WHITE ? (unmovedSingle >>> 8) & empty : (unmovedSingle << 8) & empty);
+        long[] pawnAttacks = Bitboards.PAWN_ATTACKS[color.ordinal()];
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            count += Long.bitCount(pawnAttacks[sq] & enemy);
+        }
+
+        long knights = position.pieces(Piece.PieceType.KNIGHT, color);
+        while (knights != 0) {
+            int sq = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count += Long.bitCount(Bitboards.KNIGHT_ATTACKS[sq] & ~own);
+        }
+
+        long diagonal = position.pieces(Piece.PieceType.BISHOP, color) | position.pieces(Piece.PieceType.QUEEN, color);
+        while (diagonal != 0) {
+            int sq = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            count += Long.bitCount(Bitboards.bishopAttacks(sq, occupied) & ~own);
+        }
+
+        long straight = position.pieces(Piece.PieceType.ROOK, color) | position.pieces(Piece.PieceType.QUEEN, color);
+        while (straight != 0) {
+            int sq = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            count += Long.bitCount(Bitboards.rookAttacks(sq, occupied) & ~own);
+        }
+
+        long kings = position.pieces(Piece.PieceType.KING, color);
+        while (kings != 0) {
+            int sq = Long.numberOfTrailingZeros(kings);
+            kings &= kings - 1;
+            count += Long.bitCount(Bitboards.KING_ATTACKS[sq] & ~own);
+        }
+
+        return count;
+    }
+
+    public static int pieceValue(Piece.PieceType type) {
+        switch (type) {
+            case PAWN: return PAWN_VALUE;
+            case KNIGHT: return KNIGHT_VALUE;
+            case BISHOP: return BISHOP_VALUE;
+            case ROOK: return ROOK_VALUE;
+            case QUEEN: return QUEEN_VALUE;
+            case KING: return KING_VALUE;
+            default: return 0;
+        }
+    }
+
+    public static int positionBonus(Piece.PieceType type, Piece.Color color, int square) {
+        int row = Bitboards.rowOf(square);
+        int col = Bitboards.colOf(square);
+
+        // Flip row for black pieces
+        if (color == Piece.Color.BLACK) {
+            row = 7 - row;
+        }
+
+        switch (type) {
+            case PAWN:
+                return PAWN_POSITION_BONUS[row][col];
+            case KNIGHT:
+                return KNIGHT_POSITION_BONUS[row][col];
+            case BISHOP:
+            case ROOK:
+                // Prefer center squares
+                return (3 - Math.abs(3 - row)) + (3 - Math.abs(3 - col));
+            case QUEEN:
+                // Queens are good in center but not too early
+                return ((3 - Math.abs(3 - row)) + (3 - Math.abs(3 - col))) / 2;
+            case KING:
+                // Kings prefer corners in endgame, but we'll keep it simple
+                return 0;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+
+// FEN-like board encoding: piece placement from row 0 (black's back rank, FEN rank 8) to row 7,
+// then the side to move, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b".
+// Castling and en passant do not exist in this game, so those fields are not written and are
+// ignored when parsing. Whether a pawn has moved follows from its row, as pawns never go back.
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w";
+
+    // Indexed by PieceType ordinal: KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN
+    private static final String LETTERS = "kqrbnp";
+
+    private Fen() {}
+
+    public static String encode(Position position) {
+        StringBuilder fen = new StringBuilder(72);
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int code = position.pieceAt(Bitboards.square(row, col));
+                if (code == Position.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(letter(code));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+        fen.append(position.getSideToMove() == Piece.Color.WHITE ? " w" : " b");
+        return fen.toString();
+    }
+
+    public static Position parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new RuntimeException("Invalid FEN, expected 8 rows: " + fen);
+        }
+
+        Piece.Color side = fields.length > 1 && fields[1].equals("b") ? Piece.Color.BLACK : Piece.Color.WHITE;
+        Position position = new Position(side);
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : rows[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int type = LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 7) {
+                    throw new RuntimeException("Invalid FEN: " + fen);
+                }
+                Piece.Color color = Character.isUpperCase(c) ? Piece.Color.WHITE : Piece.Color.BLACK;
+                Piece.PieceType pieceType = Piece.PieceType.values()[type];
+                position.put(Bitboards.square(row, col), Position.code(pieceType, color),
+                             pieceType == Piece.PieceType.PAWN && row != startRow(color));
+                col++;
+            }
+            if (col != 8) {
+                throw new RuntimeException("Invalid FEN row " + rows[row] + ": " + fen);
+            }
+        }
+        return position;
+    }
+
+    private static char letter(int code) {
+        char letter = LETTERS.charAt(Position.typeOf(code).ordinal());
+        return Position.colorOf(code) == Piece.Color.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    private static int startRow(Piece.Color pawnColor) {
+        return pawnColor == Piece.Color.WHITE ? 6 : 1;
+    }
+}
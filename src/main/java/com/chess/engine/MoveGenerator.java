@@ -0,0 +1,114 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+
+// Generates candidate moves per piece from the precomputed attack tables instead of
+// trying every piece against all 64 squares. Moves are packed ints: from | to << 6.
+public final class MoveGenerator {
+
+    // Comfortably above the maximum number of moves in any reachable position
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {}
+
+    public static int move(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    // Pseudo-legal moves for color: obey piece movement rules but may leave the own king in check
+    public static int generatePseudoLegal(Position position, Piece.Color color, int[] moves) {
+        int count = 0;
+        long own = position.pieces(color);
+        long enemy = position.pieces(Position.opposite(color));
+        long occupied = own | enemy;
+
+        count = addPawnMoves(position, color, enemy, occupied, moves, count);
+
+        long knights = position.pieces(Piece.PieceType.KNIGHT, color);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addTargets(from, Bitboards.KNIGHT_ATTACKS[from] & ~own, moves, count);
+        }
+
+        long bishops = position.pieces(Piece.PieceType.BISHOP, color);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            count = addTargets(from, Bitboards.bishopAttacks(from, occupied) & ~own, moves, count);
+        }
+
+        long rooks = position.pieces(Piece.PieceType.ROOK, color);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            count = addTargets(from, Bitboards.rookAttacks(from, occupied) & ~own, moves, count);
+        }
+
+        long queens = position.pieces(Piece.PieceType.QUEEN, color);
+        while (queens != 0) {
+            int from = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            count = addTargets(from, Bitboards.queenAttacks(from, occupied) & ~own, moves, count);
+        }
+
+        long kings = position.pieces(Piece.PieceType.KING, color);
+        while (kings != 0) {
+            int from = Long.numberOfTrailingZeros(kings);
+            kings &= kings - 1;
+            count = addTargets(from, Bitboards.KING_ATTACKS[from] & ~own, moves, count);
+        }
+
+        return count;
+    }
+
+    // Legal moves for color: pseudo-legal moves that do not leave the own king in check
+    public static int generateLegal(Position position, Piece.Color color, int[] moves) {
+        int pseudoCount = generatePseudoLegal(position, color, moves);
+        int count = 0;
+        for (int i = 0; i < pseudoCount; i++) {
+            if (position.isLegal(moves[i])) {
+                moves[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(Position position, Piece.Color color, long enemy, long occupied,
+                                    int[] moves, int count) {
+        int step = color == Piece.Color.WHITE ? -8 : 8;
+        long pawns = position.pieces(Piece.PieceType.PAWN, color);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            int single = from + step;
+            if (single >= 0 && single < 64 && (occupied & Bitboards.bit(single)) == 0) {
+                moves[count++] = move(from, single);
+                int dbl = single + step;
+                if (!position.hasMoved(from) && dbl >= 0 && dbl < 64 && (occupied & Bitboards.bit(dbl)) == 0) {
+                    moves[count++] = move(from, dbl);
+                }
+            }
+
+            count = addTargets(from, Bitboards.PAWN_ATTACKS[color.ordinal()][from] & enemy, moves, count);
+        }
+        return count;
+    }
+
+    private static int addTargets(int from, long targets, int[] moves, int count) {
+        while (targets != 0) {
+            moves[count++] = move(from, Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+        }
+        return count;
+    }
+}
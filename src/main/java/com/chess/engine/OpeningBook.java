@@ -0,0 +1,128 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// Memory-mapped opening book: fixed-width entries sorted by position key, so a lookup is a
+// binary search over the mapped file with no parsing and no allocation. Several entries share
+// a key when the book knows several moves for that position. Built by OpeningBookBuilder.
+//
+// File layout (big-endian):
+//   0  int   magic "BOOK"
+//   4  int   format version
+//   8  int   entry count
+//  12  int   plies per game the book was built from
+//  16  entries, 16 bytes each, sorted by key:
+//      long  Position.key() before the move
+//      int   move, MoveGenerator packed from | to << 6
+//      int   weight
+public final class OpeningBook {
+
+    public static final int MAGIC = 0x424F4F4B;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int ENTRY_BYTES = 16;
+
+    private final MappedByteBuffer entries;
+    private final int size;
+    private final int maxPlies;
+
+    private OpeningBook(MappedByteBuffer entries, int size, int maxPlies) {
+        this.entries = entries;
+        this.size = size;
+        this.maxPlies = maxPlies;
+    }
+
+    public static OpeningBook open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new RuntimeException(file + " is not an opening book");
+            }
+            int size = buffer.getInt(8);
+            if (buffer.limit() < HEADER_BYTES + (long) size * ENTRY_BYTES) {
+                throw new RuntimeException(file + " is truncated");
+            }
+            return new OpeningBook(buffer, size, buffer.getInt(12));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxPlies() {
+        return maxPlies;
+    }
+
+    // A book move for the position, picked at random in proportion to its weight, or 0 when the
+    // book has nothing for it. Only moves in the legal list are considered, which also rules out
+    // another position that happens to share the key.
+    public int probe(Position position, int[] legal, int legalCount, Random random) {
+        long key = position.key();
+        int first = firstIndex(key);
+        long total = 0;
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            if (contains(legal, legalCount, moveAt(i))) {
+                total += weightAt(i);
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long pick = (long) (random.nextDouble() * total);
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            if (contains(legal, legalCount, moveAt(i))) {
+                pick -= weightAt(i);
+                if (pick < 0) {
+                    return moveAt(i);
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Lower bound: the first entry whose key is not below the given one
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    private int weightAt(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 12);
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,314 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compiles PGN games into an OpeningBook file. Every position within the first plies of each
+// game gets an entry for the move played from it, weighted by how that game went for the side
+// that played it: 2 for a win, 1 for a draw or an unfinished line, nothing for a loss. Moves
+// that only ever lost are left out. Run with
+// `mvn -Pbook verify -Dbook.args="<games.pgn> <book.bin> [plies]"`.
+//
+// This game has no castling or en passant and only promotes to a queen, so a game is followed
+// up to the first move it cannot play (O-O, an en passant capture, an under-promotion).
+public final class OpeningBookBuilder {
+
+    public static final int DEFAULT_PLIES = 20;
+
+    private final int maxPlies;
+    // Position key -> move -> weight, kept sorted by key for writing
+    private final Map<Long, Map<Integer, Integer>> weights = new TreeMap<>();
+    private final int[] legal = new int[MoveGenerator.MAX_MOVES];
+
+    private int games;
+    private int truncatedGames;
+
+    // The game being read: positions and moves so far, and its result
+    private Position position;
+    private final List<long[]> played = new ArrayList<>();
+    private boolean stopped;
+    private String result;
+
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+        startGame();
+    }
+
+    public int getGames() { return games; }
+    public int getTruncatedGames() { return truncatedGames; }
+
+    public int getEntries() {
+        return weights.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public void read(Reader pgn) {
+        BufferedReader in = new BufferedReader(pgn);
+        int commentDepth = 0;
+        int variationDepth = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (commentDepth == 0 && variationDepth == 0 && line.startsWith("[")) {
+                    tag(line);
+                    continue;
+                }
+                StringBuilder token = new StringBuilder();
+                for (int i = 0; i <= line.length(); i++) {
+                    char c = i < line.length() ? line.charAt(i) : ' ';
+                    if (commentDepth > 0) {
+                        commentDepth = c == '}' ? 0 : commentDepth;
+                    } else if (c == '{') {
+                        commentDepth = 1;
+                    } else if (c == ';' && variationDepth == 0) {
+                        token(token.toString());
+                        break;
+                    } else if (c == '(') {
+                        variationDepth++;
+                    } else if (c == ')') {
+                        variationDepth = Math.max(0, variationDepth - 1);
+                    } else if (variationDepth > 0) {
+                        continue;
+                    } else if (Character.isWhitespace(c)) {
+                        token(token.toString());
+                        token.setLength(0);
+                        continue;
+                    } else {
+                        token.append(c);
+                        continue;
+                    }
+                    // A comment or variation also ends the token before it
+                    token(token.toString());
+                    token.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finishGame();
+    }
+
+    // Writes the book to a temporary file first, so a running server never maps half a book
+    public void write(Path file) {
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(OpeningBook.MAGIC);
+                out.writeInt(OpeningBook.VERSION);
+                out.writeInt(getEntries());
+                out.writeInt(maxPlies);
+                for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+                    for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                        out.writeLong(position.getKey());
+                        out.writeInt(move.getKey());
+                        out.writeInt(move.getValue());
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void tag(String line) {
+        // Tags after moves belong to the next game
+        if (!played.isEmpty() || stopped) {
+            finishGame();
+        }
+        if (line.startsWith("[Result ")) {
+            int open = line.indexOf('"');
+            int close = line.lastIndexOf('"');
+            if (open >= 0 && close > open) {
+                result = line.substring(open + 1, close);
+            }
+        }
+    }
+
+    private void token(String token) {
+        if (token.isEmpty() || token.startsWith("$")) {
+            return;
+        }
+        if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+            result = token;
+            finishGame();
+            return;
+        }
+        // Move numbers, possibly run into the move: "12.", "12...", "12.e4"
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i > 0 && i < token.length() && token.charAt(i) == '.') {
+            while (i < token.length() && token.charAt(i) == '.') {
+                i++;
+            }
+            token = token.substring(i);
+        } else if (i == token.length()) {
+            return;
+        }
+        if (!token.isEmpty()) {
+            san(token);
+        }
+    }
+
+    private void san(String san) {
+        if (stopped || played.size() >= maxPlies) {
+            return;
+        }
+        int move = parseSan(position, san, legal);
+        if (move == 0) {
+            stopped = true;
+            return;
+        }
+        played.add(new long[] {position.key(), move, position.getSideToMove().ordinal()});
+        position.makeMove(move);
+    }
+
+    private void finishGame() {
+        if (!played.isEmpty()) {
+            games++;
+            if (stopped) {
+                truncatedGames++;
+            }
+            for (long[] entry : played) {
+                int weight = weight(result, Piece.Color.values()[(int) entry[2]]);
+                if (weight > 0) {
+                    weights.computeIfAbsent(entry[0], key -> new HashMap<>())
+                           .merge((int) entry[1], weight, Integer::sum);
+                }
+            }
+        }
+        startGame();
+    }
+
+    private void startGame() {
+        position = Fen.parse(Fen.START);
+        played.clear();
+        stopped = false;
+        result = "*";
+    }
+
+    private static int weight(String result, Piece.Color mover) {
+        switch (result) {
+            case "1-0":
+                return mover == Piece.Color.WHITE ? 2 : 0;
+            case "0-1":
+                return mover == Piece.Color.BLACK ? 2 : 0;
+            default:
+                return 1;
+        }
+    }
+
+    // The legal move a SAN token names, or 0 if it names none, several, or one this game
+    // doesn't have. Squares are row * 8 + col with row 0 on rank 8.
+    static int parseSan(Position position, String san, int[] legal) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        san = san.substring(0, end);
+        if (san.startsWith("O-O") || san.startsWith("0-0")) {
+            return 0;
+        }
+
+        // Promotion, "e8=Q" or "e8Q"; this game only promotes to a queen
+        boolean promotion = false;
+        if (san.length() > 2 && Character.isUpperCase(san.charAt(san.length() - 1))) {
+            if (san.charAt(san.length() - 1) != 'Q') {
+                return 0;
+            }
+            promotion = true;
+            san = san.substring(0, san.length() - (san.charAt(san.length() - 2) == '=' ? 2 : 1));
+        }
+        if (san.length() < 2) {
+            return 0;
+        }
+
+        Piece.PieceType type = Piece.PieceType.PAWN;
+        int start = 0;
+        int letter = "KQRBN".indexOf(san.charAt(0));
+        if (letter >= 0) {
+            type = Piece.PieceType.values()[letter];
+            start = 1;
+        }
+        int to = square(san.charAt(san.length() - 2), san.charAt(san.length() - 1));
+        if (to < 0) {
+            return 0;
+        }
+
+        // Whatever is left is disambiguation: a file, a rank, or both
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < san.length() - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != '-') {
+                return 0;
+            }
+        }
+
+        Piece.Color side = position.getSideToMove();
+        int code = Position.code(type, side);
+        int count = MoveGenerator.generateLegal(position, side, legal);
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int from = MoveGenerator.from(legal[i]);
+            if (MoveGenerator.to(legal[i]) != to || position.pieceAt(from) != code
+                    || (fromCol >= 0 && Bitboards.colOf(from) != fromCol)
+                    || (fromRow >= 0 && Bitboards.rowOf(from) != fromRow)) {
+                continue;
+            }
+            if (found != 0) {
+                return 0;
+            }
+            found = legal[i];
+        }
+        int lastRow = side == Piece.Color.WHITE ? 0 : 7;
+        if (found != 0 && type == Piece.PieceType.PAWN && promotion != (Bitboards.rowOf(to) == lastRow)) {
+            return 0;
+        }
+        return found;
+    }
+
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return Bitboards.square('8' - rank, file - 'a');
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <games.pgn> <book.bin> [plies]");
+            return;
+        }
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        long start = System.nanoTime();
+        try (Reader pgn = Files.newBufferedReader(Path.of(args[0]))) {
+            builder.read(pgn);
+        }
+        builder.write(Path.of(args[1]));
+        System.out.printf("%,d games (%,d cut short by unsupported moves), %,d book entries written to %s in %.3f s%n",
+                          builder.getGames(), builder.getTruncatedGames(), builder.getEntries(), args[1],
+                          (System.nanoTime() - start) / 1e9);
+    }
+}
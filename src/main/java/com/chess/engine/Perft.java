@@ -0,0 +1,126 @@
+package com.chess.engine;
+
+// Move generator correctness and throughput check: counts the leaf nodes of the legal move tree
+// to a fixed depth and compares them with reference counts. Run with `mvn -Pperft verify`, or
+// pass a FEN and a depth to count an arbitrary position: `mvn -Pperft verify -Dperft.args="<fen> 4"`.
+//
+// This game has no castling or en passant and always promotes to a queen, so counts differ
+// from the published perft tables wherever those rules come into play. The start position
+// matches the published counts to depth 4 (en passant first appears at depth 5), and "position 3"
+// to depth 2; every count below was also confirmed by an independent brute-force generator.
+public final class Perft {
+
+    private static final class Case {
+        private final String name;
+        private final String fen;
+        private final long[] expected;
+
+        private Case(String name, String fen, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.expected = expected;
+        }
+    }
+
+    private static final Case[] CASES = {
+        new Case("start position", Fen.START, 20, 400, 8902, 197281, 4865351),
+        new Case("rook endgame (position 3)", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w", 14, 191, 2810, 43087),
+        new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b", 15, 210, 3253, 47828),
+        new Case("middlegame (position 4)", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w", 6, 222, 7855),
+        new Case("middlegame (kiwipete)", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w", 46, 1865, 86585),
+    };
+
+    // One move buffer per ply, so counting allocates nothing
+    private final int[][] moves;
+    private final Position position;
+
+    public Perft(Position position, int maxDepth) {
+        this.position = position;
+        this.moves = new int[Math.max(maxDepth, 1)][MoveGenerator.MAX_MOVES];
+    }
+
+    public long count(int depth) {
+        return count(depth, 0);
+    }
+
+    private long count(int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[ply];
+        int moveCount = MoveGenerator.generateLegal(position, position.getSideToMove(), buffer);
+
+        // Leaves are counted, not played
+        if (depth == 1) {
+            return moveCount;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            position.makeMove(buffer[i]);
+            nodes += count(depth - 1, ply + 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length >= 2) {
+            // FEN fields are separate arguments when the FEN is not quoted
+            StringBuilder fen = new StringBuilder();
+            for (int i = 0; i < args.length - 1; i++) {
+                fen.append(args[i]).append(' ');
+            }
+            run(fen.toString(), Integer.parseInt(args[args.length - 1]), null);
+            return;
+        }
+
+        int maxDepth = args.length == 1 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        int failures = 0;
+        for (Case perftCase : CASES) {
+            System.out.println("== " + perftCase.name + ": " + perftCase.fen);
+            long[] result = run(perftCase.fen, Math.min(maxDepth, perftCase.expected.length), perftCase.expected);
+            totalNodes += result[0];
+            totalNanos += result[1];
+            failures += (int) result[2];
+        }
+
+        System.out.printf("Total: %,d nodes in %.3f s, %,d nodes/s%n",
+                          totalNodes, totalNanos / 1e9, nodesPerSecond(totalNodes, totalNanos));
+        if (failures > 0) {
+            throw new RuntimeException("Perft failed: " + failures + " count(s) differ from the reference");
+        }
+    }
+
+    // Counts depth 1..maxDepth; returns {nodes, nanos, failures}
+    private static long[] run(String fen, int maxDepth, long[] expected) {
+        long nodes = 0;
+        long nanos = 0;
+        long failures = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Position position = Fen.parse(fen);
+            Perft perft = new Perft(position, depth);
+
+            long start = System.nanoTime();
+            long count = perft.count(depth);
+            long elapsed = System.nanoTime() - start;
+            nodes += count;
+            nanos += elapsed;
+
+            String verdict = "";
+            if (expected != null) {
+                boolean ok = count == expected[depth - 1];
+                verdict = ok ? "  ok" : "  FAILED, expected " + expected[depth - 1];
+                failures += ok ? 0 : 1;
+            }
+            System.out.printf("  depth %d: %,d nodes in %.3f s (%,d nodes/s)%s%n", depth, count,
+                              elapsed / 1e9, nodesPerSecond(count, elapsed), verdict);
+        }
+        return new long[] {nodes, nanos, failures};
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+    }
+}
@@ -0,0 +1,249 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+import java.util.Arrays;
+import java.util.List;
+
+// Bitboard board representation: one 64-bit mask per piece type and color plus a
+// square-to-piece mailbox, so square lookups and attack tests are constant time.
+public class Position {
+
+    public static final int EMPTY = 0;
+
+    private static final Piece.PieceType[] TYPES = Piece.PieceType.values();
+    private static final Piece.Color[] COLORS = Piece.Color.values();
+    private static final int[] NO_UNDO = new int[0];
+    private static final long[] NO_UNDO_MOVED = new long[0];
+
+    // Indexed by piece code - 1 (color * 6 + type)
+    private final long[] pieceBoards = new long[12];
+    private final long[] colorBoards = new long[2];
+    private final byte[] mailbox = new byte[64];
+    private long moved;
+    private Piece.Color sideToMove;
+
+    // Zobrist key, updated incrementally by put, remove and side changes
+    private long key;
+
+    // Material plus position bonus per color, updated incrementally by put and remove
+    private final int[] material = new int[2];
+
+    // Undo stack for makeMove/unmakeMove, allocated on the first makeMove so positions that
+    // only hold a game's board stay small; grows if a line gets deeper than its capacity
+    private int[] undoMoves = NO_UNDO;
+    private int[] undoPieces = NO_UNDO;
+    private int[] undoCaptured = NO_UNDO;
+    private long[] undoMoved = NO_UNDO_MOVED;
+    private int ply;
+
+    public Position(Piece.Color sideToMove) {
+        this.sideToMove = sideToMove;
+        this.key = sideToMove == Piece.Color.BLACK ? Zobrist.blackToMove() : 0L;
+    }
+
+    public static Position of(List<Piece> pieces, Piece.Color sideToMove) {
+        Position position = new Position(sideToMove);
+        for (Piece piece : pieces) {
+            position.put(Bitboards.square(piece.getRow(), piece.getCol()),
+                         code(piece.getType(), piece.getColor()), piece.isHasMoved());
+        }
+        return position;
+    }
+
+    // Copies the board only; the copy starts with an empty undo stack
+    public Position copy() {
+        Position copy = new Position(sideToMove);
+        System.arraycopy(pieceBoards, 0, copy.pieceBoards, 0, pieceBoards.length);
+        System.arraycopy(colorBoards, 0, copy.colorBoards, 0, colorBoards.length);
+        System.arraycopy(mailbox, 0, copy.mailbox, 0, mailbox.length);
+        copy.moved = moved;
+        copy.key = key;
+        copy.material[0] = material[0];
+        copy.material[1] = material[1];
+        return copy;
+    }
+
+    // Piece codes: 0 is an empty square, 1-12 encode color * 6 + type + 1
+    public static int code(Piece.PieceType type, Piece.Color color) {
+        return color.ordinal() * 6 + type.ordinal() + 1;
+    }
+
+    public static Piece.PieceType typeOf(int code) {
+        return TYPES[(code - 1) % 6];
+    }
+
+    public static Piece.Color colorOf(int code) {
+        return COLORS[(code - 1) / 6];
+    }
+
+    public static Piece.Color opposite(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long pieces(Piece.PieceType type, Piece.Color color) {
+        return pieceBoards[code(type, color) - 1];
+    }
+
+    public long pieces(Piece.Color color) {
+        return colorBoards[color.ordinal()];
+    }
+
+    public long occupied() {
+        return colorBoards[0] | colorBoards[1];
+    }
+
+    public boolean hasMoved(int square) {
+        return (moved & Bitboards.bit(square)) != 0;
+    }
+
+    public long movedMask() {
+        return moved;
+    }
+
+    public int material(Piece.Color color) {
+        return material[color.ordinal()];
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public Piece.Color getSideToMove() { return sideToMove; }
+    public void setSideToMove(Piece.Color sideToMove) {
+        if (sideToMove != this.sideToMove) {
+            key ^= Zobrist.blackToMove();
+        }
+        this.sideToMove = sideToMove;
+    }
+
+    public void put(int square, int code, boolean hasMoved) {
+        long bit = Bitboards.bit(square);
+        remove(square);
+        mailbox[square] = (byte) code;
+        key ^= Zobrist.piece(code, square);
+        material[(code - 1) / 6] += Evaluation.pieceSquareValue(code, square);
+        pieceBoards[code - 1] |= bit;
+        colorBoards[(code - 1) / 6] |= bit;
+        if (hasMoved) {
+            moved |= bit;
+        } else {
+            moved &= ~bit;
+        }
+    }
+
+    public void remove(int square) {
+        int code = mailbox[square];
+        if (code == EMPTY) {
+            return;
+        }
+        long bit = Bitboards.bit(square);
+        mailbox[square] = EMPTY;
+        key ^= Zobrist.piece(code, square);
+        material[(code - 1) / 6] -= Evaluation.pieceSquareValue(code, square);
+        pieceBoards[code - 1] &= ~bit;
+        colorBoards[(code - 1) / 6] &= ~bit;
+        moved &= ~bit;
+    }
+
+    // Moves the piece on from to to, capturing whatever stands there; the piece is marked as moved
+    public void move(int from, int to, int newCode) {
+        remove(to);
+        remove(from);
+        put(to, newCode, true);
+    }
+
+    public int kingSquare(Piece.Color color) {
+        long king = pieces(Piece.PieceType.KING, color);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    public boolean isSquareAttacked(int square, Piece.Color byColor) {
+        return isSquareAttacked(square, byColor, occupied(), -1L);
+    }
+
+    // Attack test against a hypothetical occupancy, considering only attackers inside attackerMask
+    private boolean isSquareAttacked(int square, Piece.Color byColor, long occupied, long attackerMask) {
+        long queens = pieces(Piece.PieceType.QUEEN, byColor) & attackerMask;
+
+        // A pawn of byColor attacks square iff a pawn of the other color on square would attack it back
+        return (Bitboards.PAWN_ATTACKS[opposite(byColor).ordinal()][square] & pieces(Piece.PieceType.PAWN, byColor) & attackerMask) != 0
+            || (Bitboards.KNIGHT_ATTACKS[square] & pieces(Piece.PieceType.KNIGHT, byColor) & attackerMask) != 0
+            || (Bitboards.KING_ATTACKS[square] & pieces(Piece.PieceType.KING, byColor) & attackerMask) != 0
+            || (Bitboards.bishopAttacks(square, occupied) & ((pieces(Piece.PieceType.BISHOP, byColor) & attackerMask) | queens)) != 0
+            || (Bitboards.rookAttacks(square, occupied) & ((pieces(Piece.PieceType.ROOK, byColor) & attackerMask) | queens)) != 0;
+    }
+
+    public boolean isInCheck(Piece.Color color) {
+        int king = kingSquare(color);
+        return king >= 0 && isSquareAttacked(king, opposite(color));
+    }
+
+    // True if the pseudo-legal move does not leave the mover's king in check. Works on a
+    // hypothetical occupancy, so it neither mutates nor copies the position.
+    public boolean isLegal(int move) {
+        int from = MoveGenerator.from(move);
+        int to = MoveGenerator.to(move);
+        int piece = mailbox[from];
+        Piece.Color color = colorOf(piece);
+
+        int king = typeOf(piece) == Piece.PieceType.KING ? to : kingSquare(color);
+        if (king < 0) {
+            return true;
+        }
+
+        long occupied = (occupied() & ~Bitboards.bit(from)) | Bitboards.bit(to);
+        return !isSquareAttacked(king, opposite(color), occupied, ~Bitboards.bit(to));
+    }
+
+    // Plays a move in place, recording what unmakeMove needs to restore it. Pawns reaching
+    // the last rank are promoted to queens, as in ChessService.executeMove.
+    public void makeMove(int move) {
+        int from = MoveGenerator.from(move);
+        int to = MoveGenerator.to(move);
+        int piece = mailbox[from];
+
+        if (ply == undoMoves.length) {
+            int capacity = Math.max(64, ply * 2);
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoPieces = Arrays.copyOf(undoPieces, capacity);
+            undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+            undoMoved = Arrays.copyOf(undoMoved, capacity);
+        }
+        undoMoves[ply] = move;
+        undoPieces[ply] = piece;
+        undoCaptured[ply] = mailbox[to];
+        undoMoved[ply] = moved;
+        ply++;
+
+        move(from, to, promoted(piece, to));
+        setSideToMove(opposite(sideToMove));
+    }
+
+    public void unmakeMove() {
+        ply--;
+        int from = MoveGenerator.from(undoMoves[ply]);
+        int to = MoveGenerator.to(undoMoves[ply]);
+
+        remove(to);
+        put(from, undoPieces[ply], false);
+        if (undoCaptured[ply] != EMPTY) {
+            put(to, undoCaptured[ply], false);
+        }
+        moved = undoMoved[ply];
+        setSideToMove(opposite(sideToMove));
+    }
+
+    private static int promoted(int piece, int to) {
+        if (typeOf(piece) == Piece.PieceType.PAWN) {
+            int row = Bitboards.rowOf(to);
+            if ((row == 0 && colorOf(piece) == Piece.Color.WHITE) || (row == 7 && colorOf(piece) == Piece.Color.BLACK)) {
+                return code(Piece.PieceType.QUEEN, colorOf(piece));
+            }
+        }
+        return piece;
+    }
+}
@@ -0,0 +1,335 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+
+// Negamax alpha-beta search with iterative deepening and a quiescence search over captures.
+// A Search owns its position and buffers, so it allocates nothing once it is running; use
+// one instance per search thread. The transposition table may be shared between threads.
+public class Search {
+
+    public static final int MATE_SCORE = 1_000_000;
+    private static final int INFINITY = MATE_SCORE + 1;
+    public static final int MAX_PLY = 64;
+
+    private static final int HASH_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 10_000;
+
+    // How often (in nodes) the deadline is polled
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private final Position position;
+    private final TranspositionTable table;
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+    // Two quiet moves per ply that recently caused a beta cutoff, tried right after captures
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+
+    private long deadline;
+    private long nodes;
+    private boolean stopped;
+
+    // Set from another thread to end the search early, e.g. when Lazy SMP's main thread is done
+    private volatile boolean aborted;
+
+    public Search(Position position, TranspositionTable table) {
+        this.position = position;
+        this.table = table;
+    }
+
+    public static class Result {
+        public final int move;
+        public final int score;
+        public final int depth;
+        public final long nodes;
+
+        public Result(int move, int score, int depth, long nodes) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+    }
+
+    // Searches the side to move until maxDepth is completed or the time budget runs out.
+    // The result move is 0 (with depth 0) only if the side to move has no legal move.
+    public Result search(int maxDepth, long timeBudgetMillis) {
+        return search(1, maxDepth, timeBudgetMillis);
+    }
+
+    // Lazy SMP helpers start deeper than the main thread so the threads spread over different
+    // depths and fill the shared transposition table for each other
+    public Result search(int startDepth, int maxDepth, long timeBudgetMillis) {
+        long start = System.nanoTime();
+        deadline = start + timeBudgetMillis * 1_000_000L;
+        nodes = 0;
+        stopped = false;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+
+        int[] rootMoves = moves[0];
+        int rootCount = MoveGenerator.generateLegal(position, position.getSideToMove(), rootMoves);
+        if (rootCount == 0) {
+            return new Result(0, -MATE_SCORE, 0, 0);
+        }
+
+        // Captures first by MVV-LVA; afterwards each iteration's best move is moved to the front
+        scoreMoves(rootMoves, orderScores[0], rootCount, 0, TranspositionTable.move(table.probe(position.key())));
+        for (int i = 0; i < rootCount; i++) {
+            pickNext(rootMoves, orderScores[0], i, rootCount);
+        }
+
+        int bestMove = rootMoves[0];
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+            int iterationMove = 0;
+            int iterationScore = -INFINITY;
+            int alpha = -INFINITY;
+
+            for (int i = 0; i < rootCount; i++) {
+                int move = rootMoves[i];
+
+                position.makeMove(move);
+                int score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+                position.unmakeMove();
+
+                if (stopped) {
+                    break;
+                }
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationMove = move;
+                    alpha = score;
+                }
+            }
+
+            // A partial iteration still searched the previous best first, so its best move is safe to use
+            if (iterationMove != 0 || !stopped) {
+                bestMove = iterationMove;
+                bestScore = iterationScore;
+                moveToFront(rootMoves, rootCount, bestMove);
+            }
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            table.store(position.key(), bestMove, toTable(bestScore, 0), depth, TranspositionTable.EXACT);
+
+            // Stop on a forced mate, or when the next iteration is unlikely to finish in time
+            long elapsed = System.nanoTime() - start;
+            if (Math.abs(bestScore) > MATE_SCORE - MAX_PLY || elapsed * 2 > deadline - start) {
+                break;
+            }
+        }
+
+        return new Result(bestMove, bestScore, completedDepth, nodes);
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (pollStop()) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(alpha, beta, ply);
+        }
+
+        long key = position.key();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int[] plyScores = orderScores[ply];
+        int count = MoveGenerator.generatePseudoLegal(position, position.getSideToMove(), plyMoves);
+        scoreMoves(plyMoves, plyScores, count, ply, hashMove);
+
+        int bestMove = 0;
+        int legalMoves = 0;
+        for (int i = 0; i < count; i++) {
+            pickNext(plyMoves, plyScores, i, count);
+            int move = plyMoves[i];
+            if (!position.isLegal(move)) {
+                continue;
+            }
+            legalMoves++;
+
+            position.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                if (position.pieceAt(MoveGenerator.to(move)) == Position.EMPTY && killers[ply][0] != move) {
+                    killers[ply][1] = killers[ply][0];
+                    killers[ply][0] = move;
+                }
+                table.store(key, move, toTable(beta, ply), depth, TranspositionTable.LOWER);
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+
+        // This game scores any position without a legal move as a loss (see ChessService.checkForGameEnd)
+        if (legalMoves == 0) {
+            return -MATE_SCORE + ply;
+        }
+        table.store(key, bestMove, toTable(alpha, ply), depth,
+                    bestMove != 0 ? TranspositionTable.EXACT : TranspositionTable.UPPER);
+        return alpha;
+    }
+
+    // Resolves pending captures so the static evaluation is not taken mid-exchange
+    private int quiesce(int alpha, int beta, int ply) {
+        if (pollStop()) {
+            return 0;
+        }
+
+        Piece.Color side = position.getSideToMove();
+        int standPat = Evaluation.evaluate(position, side);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] plyMoves = moves[ply];
+        int[] plyScores = orderScores[ply];
+        int count = generateCaptures(side, plyMoves);
+        scoreMoves(plyMoves, plyScores, count, ply, 0);
+
+        for (int i = 0; i < count; i++) {
+            pickNext(plyMoves, plyScores, i, count);
+            int move = plyMoves[i];
+            if (!position.isLegal(move)) {
+                continue;
+            }
+
+            position.makeMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    private int generateCaptures(Piece.Color side, int[] buffer) {
+        int count = MoveGenerator.generatePseudoLegal(position, side, buffer);
+        long enemy = position.pieces(Position.opposite(side));
+        int captures = 0;
+        for (int i = 0; i < count; i++) {
+            if ((enemy & Bitboards.bit(MoveGenerator.to(buffer[i]))) != 0) {
+                buffer[captures++] = buffer[i];
+            }
+        }
+        return captures;
+    }
+
+    // Hash move first, then captures by most valuable victim, least valuable attacker, then
+    // killers, then other quiet moves
+    private void scoreMoves(int[] buffer, int[] scores, int count, int ply, int hashMove) {
+        for (int i = 0; i < count; i++) {
+            int victim = position.pieceAt(MoveGenerator.to(buffer[i]));
+            if (buffer[i] == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (victim == Position.EMPTY) {
+                scores[i] = buffer[i] == killers[ply][0] ? 2 : buffer[i] == killers[ply][1] ? 1 : 0;
+            } else {
+                int attacker = position.pieceAt(MoveGenerator.from(buffer[i]));
+                // PieceType ordinals run from KING to PAWN, so cheaper attackers get a higher tiebreak
+                scores[i] = CAPTURE_SCORE + Evaluation.pieceValue(Position.typeOf(victim)) * 10
+                          + Position.typeOf(attacker).ordinal();
+            }
+        }
+    }
+
+    // Mate scores are stored relative to the node so they stay valid when reached at another ply
+    private static int toTable(int score, int ply) {
+        if (score > MATE_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score < -MATE_SCORE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_SCORE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score < -MATE_SCORE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static void pickNext(int[] buffer, int[] scores, int start, int count) {
+        int best = start;
+        for (int i = start + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != start) {
+            int move = buffer[start];
+            buffer[start] = buffer[best];
+            buffer[best] = move;
+            int score = scores[start];
+            scores[start] = scores[best];
+            scores[best] = score;
+        }
+    }
+
+    private static void moveToFront(int[] buffer, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == move) {
+                System.arraycopy(buffer, 0, buffer, 1, i);
+                buffer[0] = move;
+                return;
+            }
+        }
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    private boolean pollStop() {
+        if ((++nodes & TIME_CHECK_MASK) == 0
+                && (aborted || System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+}
@@ -0,0 +1,151 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Distance-to-mate table for one material balance, named by its signature: the white pieces
+// then the black ones, each side starting with its king, e.g. "KQK" or "KPKP". Built by
+// TablebaseGenerator under this game's rules, where a side with no legal moves has lost.
+//
+// One byte per position, indexed by the square of every piece in signature order and then the
+// side to move: ((s0 * 64 + s1) * 64 + s2 ...) * 2 + (black to move ? 1 : 0). A byte holds the
+// plies to the end of the game + 1: odd plies mean the side to move wins, even plies that it
+// loses. 0 is a draw, or an index that is not a legal position.
+//
+// File layout: int magic "TBAS", int format version, then the bytes.
+public final class Tablebase {
+
+    public static final int MAGIC = 0x54424153;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 8;
+    public static final String SUFFIX = ".tb";
+
+    // Probe results other than plies + 1
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+
+    private static final String LETTERS = "KQRBNP";
+
+    private final String signature;
+    private final int[] codes;
+    private final ByteBuffer values;
+
+    private Tablebase(String signature, ByteBuffer values) {
+        this.signature = signature;
+        this.codes = codes(signature);
+        this.values = values;
+    }
+
+    public static Tablebase open(Path file) {
+        String name = file.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String signature = name.substring(0, name.length() - SUFFIX.length());
+            if (buffer.limit() != HEADER_BYTES + size(signature) || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != VERSION) {
+                throw new RuntimeException(file + " is not a " + signature + " tablebase");
+            }
+            return new Tablebase(signature, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public int pieceCount() {
+        return codes.length;
+    }
+
+    // The position's value from the side to move's point of view. With flipped, the position
+    // is looked up with colors swapped and the board mirrored, for tables that hold its
+    // material with the other side as white.
+    public int probe(Position position, boolean flipped) {
+        int index = 0;
+        long used = 0;
+        for (int code : codes) {
+            Piece.Color color = flipped ? Position.opposite(Position.colorOf(code)) : Position.colorOf(code);
+            int square = Long.numberOfTrailingZeros(position.pieces(Position.typeOf(code), color) & ~used);
+            used |= Bitboards.bit(square);
+            index = index * 64 + (flipped ? square ^ 56 : square);
+        }
+        boolean blackToMove = (position.getSideToMove() == Piece.Color.BLACK) != flipped;
+        return values.get(HEADER_BYTES + index * 2 + (blackToMove ? 1 : 0)) & 0xFF;
+    }
+
+    public static boolean isWin(int value) {
+        return value > 0 && value % 2 == 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return value > 0 && value % 2 == 1;
+    }
+
+    public static int pliesToEnd(int value) {
+        return value - 1;
+    }
+
+    public static int size(String signature) {
+        return 2 << 6 * signature.length();
+    }
+
+    // Piece codes in signature order
+    static int[] codes(String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        if (!signature.startsWith("K") || blackKing < 0) {
+            throw new RuntimeException("Invalid tablebase signature: " + signature);
+        }
+        int[] codes = new int[signature.length()];
+        for (int i = 0; i < codes.length; i++) {
+            int type = LETTERS.indexOf(signature.charAt(i));
+            if (type < 0) {
+                throw new RuntimeException("Invalid tablebase signature: " + signature);
+            }
+            codes[i] = Position.code(Piece.PieceType.values()[type], i < blackKing ? Piece.Color.WHITE : Piece.Color.BLACK);
+        }
+        return codes;
+    }
+
+    // The material on the board as a signature, with colors swapped if flipped
+    public static String signatureOf(Position position, boolean flipped) {
+        StringBuilder signature = new StringBuilder(8);
+        for (int side = 0; side < 2; side++) {
+            Piece.Color color = Piece.Color.values()[flipped ? 1 - side : side];
+            for (Piece.PieceType type : Piece.PieceType.values()) {
+                for (int i = Long.bitCount(position.pieces(type, color)); i > 0; i--) {
+                    signature.append(LETTERS.charAt(type.ordinal()));
+                }
+            }
+        }
+        return signature.toString();
+    }
+
+    // Colors swapped: "KKQ" is "KQK" seen from the other side
+    public static String flip(String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        return signature.substring(blackKing) + signature.substring(0, blackKing);
+    }
+
+    // The name a material balance is built and stored under: the stronger side as white
+    public static String canonical(String signature) {
+        String flipped = flip(signature);
+        return strength(flipped) > strength(signature) ? flipped : signature;
+    }
+
+    // Orders the white pieces against the black ones: more pieces first, then better pieces
+    private static int strength(String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        int compare = Integer.compare(blackKing, signature.length() - blackKing);
+        for (int i = 1; compare == 0 && i < blackKing; i++) {
+            compare = Integer.compare(LETTERS.indexOf(signature.charAt(blackKing + i)), LETTERS.indexOf(signature.charAt(i)));
+        }
+        return compare;
+    }
+}
@@ -0,0 +1,354 @@
+package com.chess.engine;
+
+import com.chess.model.Piece;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds Tablebase files by retrograde analysis. Positions are resolved in order of distance to
+// the end: a position with no legal moves is lost, one with a move into a lost position is won
+// one ply later, and one whose every move reaches a won position is lost one ply after the
+// slowest of them. Moves that stay in the table are walked backwards from each newly resolved
+// position ("unmoves"); captures and promotions change the material, so their outcome comes from
+// the smaller tables, which are built first. Whatever is never resolved is a draw.
+// Run with `mvn -Ptablebases verify -Dtablebases.args="<directory> KQK KRK KPK KQKR ..."`.
+public final class TablebaseGenerator {
+
+    public static final int MAX_PIECES = 4;
+
+    // Values are stored in a byte, and convertedLoss uses 255 to mark a conversion that draws
+    private static final int MAX_VALUE = 254;
+    private static final byte CAN_DRAW = (byte) 255;
+
+    private final Tablebases tablebases;
+
+    // The table being built
+    private int pieces;
+    private int[] codes;
+    private byte[] values;
+    private byte[] candidates;
+    private byte[] remaining;
+    private byte[] convertedLoss;
+    private long[] legal;
+    private int maxCandidate;
+
+    private final Position position = new Position(Piece.Color.WHITE);
+    private final int[] squares = new int[MAX_PIECES];
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    public TablebaseGenerator(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    // Builds the signature's table and every smaller one it depends on, skipping those already
+    // available; returns the signatures built
+    public List<String> build(Path directory, String signature) {
+        List<String> built = new ArrayList<>();
+        build(directory, Tablebase.canonical(signature), built);
+        return built;
+    }
+
+    private void build(Path directory, String signature, List<String> built) {
+        if (tablebases.contains(signature)) {
+            return;
+        }
+        if (signature.length() > MAX_PIECES) {
+            throw new RuntimeException("Tablebases go up to " + MAX_PIECES + " pieces: " + signature);
+        }
+        for (String smaller : conversions(signature)) {
+            build(directory, smaller, built);
+        }
+        Path file = directory.resolve(signature + Tablebase.SUFFIX);
+        write(file, generate(signature));
+        tablebases.add(Tablebase.open(file));
+        built.add(signature);
+    }
+
+    // The material reached by capturing any piece but a king, or promoting a pawn
+    static List<String> conversions(String signature) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < signature.length(); i++) {
+            char piece = signature.charAt(i);
+            if (piece == 'K') {
+                continue;
+            }
+            add(result, signature.substring(0, i) + signature.substring(i + 1));
+            if (piece == 'P') {
+                add(result, signature.substring(0, i) + 'Q' + signature.substring(i + 1));
+            }
+        }
+        return result;
+    }
+
+    private static void add(List<String> result, String signature) {
+        int blackKing = signature.indexOf('K', 1);
+        String canonical = Tablebase.canonical(sorted(signature.substring(0, blackKing)) + sorted(signature.substring(blackKing)));
+        if (!result.contains(canonical)) {
+            result.add(canonical);
+        }
+    }
+
+    // One side's pieces back in signature order (K Q R B N P) after a promotion
+    private static String sorted(String side) {
+        StringBuilder sorted = new StringBuilder("K");
+        for (char letter : "QRBNP".toCharArray()) {
+            for (int i = 1; i < side.length(); i++) {
+                if (side.charAt(i) == letter) {
+                    sorted.append(letter);
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    public byte[] generate(String signature) {
+        pieces = signature.length();
+        codes = Tablebase.codes(signature);
+        int size = Tablebase.size(signature);
+        values = new byte[size];
+        candidates = new byte[size];
+        remaining = new byte[size];
+        convertedLoss = new byte[size];
+        legal = new long[(size + 63) / 64];
+        maxCandidate = 0;
+
+        for (int index = 0; index < size; index++) {
+            initialize(index);
+        }
+        for (int value = 1; value <= maxCandidate; value++) {
+            for (int index = 0; index < size; index++) {
+                if (values[index] == 0 && (candidates[index] & 0xFF) == value) {
+                    values[index] = (byte) value;
+                    propagate(index, value);
+                }
+            }
+        }
+
+        byte[] result = values;
+        values = candidates = remaining = convertedLoss = null;
+        legal = null;
+        return result;
+    }
+
+    // Counts the moves that stay in the table and scores the ones that leave it
+    private void initialize(int index) {
+        if (!setUp(index)) {
+            return;
+        }
+        legal[index >>> 6] |= 1L << index;
+        Piece.Color side = position.getSideToMove();
+        int moveCount = MoveGenerator.generateLegal(position, side, moves);
+        if (moveCount == 0) {
+            candidate(index, 1);
+            return;
+        }
+
+        int lastRow = side == Piece.Color.WHITE ? 0 : 7;
+        int inTable = 0;
+        int win = 0;
+        int loss = 0;
+        boolean canDraw = false;
+        for (int i = 0; i < moveCount; i++) {
+            int from = MoveGenerator.from(moves[i]);
+            int to = MoveGenerator.to(moves[i]);
+            boolean promotes = Position.typeOf(position.pieceAt(from)) == Piece.PieceType.PAWN && Bitboards.rowOf(to) == lastRow;
+            if (position.pieceAt(to) == Position.EMPTY && !promotes) {
+                inTable++;
+                continue;
+            }
+
+            position.makeMove(moves[i]);
+            int value = tablebases.probe(position);
+            String reached = value == Tablebase.NOT_FOUND ? Tablebase.signatureOf(position, false) : null;
+            position.unmakeMove();
+            if (reached != null) {
+                throw new RuntimeException("Missing tablebase " + Tablebase.canonical(reached));
+            }
+            if (value == Tablebase.DRAW) {
+                canDraw = true;
+            } else if (Tablebase.isLoss(value)) {
+                win = win == 0 ? value + 1 : Math.min(win, value + 1);
+            } else {
+                loss = Math.max(loss, value + 1);
+            }
+        }
+
+        remaining[index] = (byte) inTable;
+        if (win > 0) {
+            candidate(index, win);
+        } else if (canDraw) {
+            convertedLoss[index] = CAN_DRAW;
+        } else {
+            convertedLoss[index] = (byte) checked(loss);
+            if (inTable == 0) {
+                candidate(index, loss);
+            }
+        }
+    }
+
+    // Walks back every move into the newly resolved position by the side that made it
+    private void propagate(int index, int value) {
+        setUp(index);
+        Piece.Color defender = position.getSideToMove();
+        Piece.Color mover = Position.opposite(defender);
+        int defenderKing = position.kingSquare(defender);
+        long occupied = position.occupied();
+
+        for (int slot = 0; slot < pieces; slot++) {
+            int code = codes[slot];
+            if (Position.colorOf(code) != mover) {
+                continue;
+            }
+            int square = squares[slot];
+            long origins = origins(Position.typeOf(code), mover, square, occupied);
+            while (origins != 0) {
+                int origin = Long.numberOfTrailingZeros(origins);
+                origins &= origins - 1;
+
+                // The earlier position must not have had the defender in check with the mover to play
+                position.move(square, origin, code);
+                boolean defenderInCheck = position.isSquareAttacked(defenderKing, mover);
+                position.move(origin, square, code);
+                if (defenderInCheck) {
+                    continue;
+                }
+
+                int previous = index(slot, origin, mover);
+                if (values[previous] != 0 || (legal[previous >>> 6] & 1L << previous) == 0) {
+                    continue;
+                }
+                if (Tablebase.isLoss(value)) {
+                    int current = candidates[previous] & 0xFF;
+                    if (current == 0 || value + 1 < current) {
+                        candidate(previous, value + 1);
+                    }
+                } else if (--remaining[previous] == 0 && convertedLoss[previous] != CAN_DRAW && candidates[previous] == 0) {
+                    candidate(previous, Math.max(value + 1, convertedLoss[previous] & 0xFF));
+                }
+            }
+        }
+    }
+
+    // Squares the piece could have come from without capturing
+    private static long origins(Piece.PieceType type, Piece.Color color, int square, long occupied) {
+        long empty = ~occupied;
+        switch (type) {
+            case KING:
+                return Bitboards.KING_ATTACKS[square] & empty;
+            case KNIGHT:
+                return Bitboards.KNIGHT_ATTACKS[square] & empty;
+            case BISHOP:
+                return Bitboards.bishopAttacks(square, occupied) & empty;
+            case ROOK:
+                return Bitboards.rookAttacks(square, occupied) & empty;
+            case QUEEN:
+                return Bitboards.queenAttacks(square, occupied) & empty;
+            default:
+                // Pawns step back toward their own side, two squares from the double-step row
+                int back = color == Piece.Color.WHITE ? 8 : -8;
+                int row = Bitboards.rowOf(square);
+                int startRow = color == Piece.Color.WHITE ? 6 : 1;
+                int doubleRow = color == Piece.Color.WHITE ? 4 : 3;
+                long result = 0;
+                if (row != startRow && (empty & Bitboards.bit(square + back)) != 0) {
+                    result |= Bitboards.bit(square + back);
+                    if (row == doubleRow && (empty & Bitboards.bit(square + 2 * back)) != 0) {
+                        result |= Bitboards.bit(square + 2 * back);
+                    }
+                }
+                return result;
+        }
+    }
+
+    // Places the pieces of an index on the board; false if it is not a legal position
+    private boolean setUp(int index) {
+        for (int slot = 0; slot < pieces; slot++) {
+            if (position.pieceAt(squares[slot]) != Position.EMPTY) {
+                position.remove(squares[slot]);
+            }
+        }
+        Piece.Color side = (index & 1) == 0 ? Piece.Color.WHITE : Piece.Color.BLACK;
+        position.setSideToMove(side);
+
+        boolean valid = true;
+        int rest = index >>> 1;
+        for (int slot = pieces - 1; slot >= 0; slot--) {
+            squares[slot] = rest & 63;
+            rest >>>= 6;
+        }
+        for (int slot = 0; slot < pieces; slot++) {
+            int square = squares[slot];
+            int code = codes[slot];
+            if (position.pieceAt(square) != Position.EMPTY) {
+                valid = false;
+                continue;
+            }
+            int row = Bitboards.rowOf(square);
+            boolean pawn = Position.typeOf(code) == Piece.PieceType.PAWN;
+            if (pawn && (row == 0 || row == 7)) {
+                valid = false;
+            }
+            int startRow = Position.colorOf(code) == Piece.Color.WHITE ? 6 : 1;
+            position.put(square, code, !pawn || row != startRow);
+        }
+        return valid && !position.isInCheck(Position.opposite(side));
+    }
+
+    private int index(int slot, int square, Piece.Color sideToMove) {
+        int index = 0;
+        for (int i = 0; i < pieces; i++) {
+            index = index * 64 + (i == slot ? square : squares[i]);
+        }
+        return index * 2 + sideToMove.ordinal();
+    }
+
+    private void candidate(int index, int value) {
+        candidates[index] = (byte) checked(value);
+        maxCandidate = Math.max(maxCandidate, value);
+    }
+
+    private static int checked(int value) {
+        if (value > MAX_VALUE) {
+            throw new RuntimeException("Distance to mate beyond " + (MAX_VALUE - 1) + " plies");
+        }
+        return value;
+    }
+
+    // Writes to a temporary file first, so a running server never maps half a table
+    private static void write(Path file, byte[] values) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(ByteBuffer.allocate(Tablebase.HEADER_BYTES).putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).array());
+                out.write(values);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: TablebaseGenerator <directory> <signature>...");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Tablebases tablebases = Tablebases.open(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(tablebases);
+        for (int i = 1; i < args.length; i++) {
+            long start = System.nanoTime();
+            List<String> built = generator.build(directory, args[i]);
+            System.out.printf("%s: %s in %.1f s%n", args[i],
+                              built.isEmpty() ? "already built" : "built " + String.join(", ", built),
+                              (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// The tablebases available for probing, looked up by the material on the board in either
+// color orientation. Positions with more pieces than the largest table are rejected on a
+// piece count, so probing a middlegame position costs next to nothing.
+public final class Tablebases {
+
+    private final Map<String, Tablebase> tables = new ConcurrentHashMap<>();
+    private volatile int maxPieces;
+
+    // Maps every table in the directory
+    public static Tablebases open(Path directory) {
+        Tablebases tablebases = new Tablebases();
+        if (!Files.isDirectory(directory)) {
+            return tablebases;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(Tablebase.SUFFIX))
+                 .forEach(file -> tablebases.add(Tablebase.open(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tablebases;
+    }
+
+    public void add(Tablebase table) {
+        tables.put(table.getSignature(), table);
+        maxPieces = Math.max(maxPieces, table.pieceCount());
+    }
+
+    public boolean contains(String signature) {
+        return tables.containsKey(signature) || tables.containsKey(Tablebase.flip(signature));
+    }
+
+    public Set<String> signatures() {
+        return tables.keySet();
+    }
+
+    // Tablebase.DRAW, plies to the end + 1, or Tablebase.NOT_FOUND
+    public int probe(Position position) {
+        if (Long.bitCount(position.occupied()) > maxPieces) {
+            return Tablebase.NOT_FOUND;
+        }
+        Tablebase table = tables.get(Tablebase.signatureOf(position, false));
+        if (table != null) {
+            return table.probe(position, false);
+        }
+        table = tables.get(Tablebase.signatureOf(position, true));
+        return table == null ? Tablebase.NOT_FOUND : table.probe(position, true);
+    }
+
+    // The move that wins fastest, else one that holds the draw, else the one that loses
+    // slowest; 0 if the position or any position it leads to is not covered
+    public int bestMove(Position position, int[] moves, int moveCount) {
+        if (probe(position) == Tablebase.NOT_FOUND) {
+            return 0;
+        }
+        int best = 0;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moveCount; i++) {
+            position.makeMove(moves[i]);
+            int value = probe(position);
+            position.unmakeMove();
+            if (value == Tablebase.NOT_FOUND) {
+                return 0;
+            }
+            // The opponent's value after the move: their quickest loss ranks highest
+            int rank = Tablebase.isLoss(value) ? 1000 - value : Tablebase.isWin(value) ? -1000 + value : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,88 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+// Fixed-size transposition table in a primitive long[], shared lock-free between search
+// threads. Each slot is two longs: (key ^ data, data). A torn write from a concurrent store
+// fails the key check on probe and reads as a miss, so no locking is needed.
+//
+// data layout: move (12 bits) | score + SCORE_OFFSET (22) | depth (7) | bound (2) | generation (8)
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int SCORE_OFFSET = 1 << 21;
+    private static final int ENTRY_LONGS = 2;
+
+    private final long[] table;
+    private final int mask;
+    private volatile int generation;
+
+    public TranspositionTable(int sizeMb) {
+        long slots = Math.max(1024L, (long) sizeMb * 1024 * 1024 / (ENTRY_LONGS * Long.BYTES));
+        // Round down to a power of two so the index is a mask, capped by the maximum array length
+        int capacity = (int) Math.min(Long.highestOneBit(slots), 1 << 29);
+        this.table = new long[capacity * ENTRY_LONGS];
+        this.mask = capacity - 1;
+    }
+
+    // Called once per root search so entries from earlier searches become preferred victims
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    // Forgets every entry, so the next search starts cold
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    // Returns the stored data for key, or 0 on a miss (valid data is never 0)
+    public long probe(long key) {
+        int index = (int) (key & mask) * ENTRY_LONGS;
+        long data = table[index + 1];
+        return (table[index] ^ data) == key ? data : 0L;
+    }
+
+    // Depth-preferred replacement: keep a deeper entry from the current search unless it is the same position
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & mask) * ENTRY_LONGS;
+        long existing = table[index + 1];
+        boolean sameKey = (table[index] ^ existing) == key;
+        if (existing != 0 && !sameKey && generation(existing) == generation && depth(existing) > depth) {
+            return;
+        }
+        if (sameKey && move == 0) {
+            move = move(existing);
+        }
+
+        long data = (move & 0xFFFL)
+                  | ((long) (score + SCORE_OFFSET) & 0x3FFFFFL) << 12
+                  | ((long) depth & 0x7FL) << 34
+                  | ((long) bound & 0x3L) << 41
+                  | ((long) generation & 0xFFL) << 43;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFF);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> 12) & 0x3FFFFF) - SCORE_OFFSET;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 34) & 0x7F);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 41) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 43) & 0xFF);
+    }
+}
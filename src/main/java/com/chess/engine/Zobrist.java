@@ -0,0 +1,36 @@
+package com.chess.engine;
+
+import java.util.SplittableRandom;
+
+// Zobrist hashing keys. Position xors them in and out as pieces are put and removed, so its
+// key is maintained incrementally. Moved flags are not hashed: no castling exists, and a pawn
+// still on its start row can never have moved.
+public final class Zobrist {
+
+    // Fixed seed so keys (and anything persisted by key) are stable across restarts
+    private static final long SEED = 0x5DEECE66DL;
+
+    // Indexed by piece code - 1, then square
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] keys : PIECE_KEYS) {
+            for (int sq = 0; sq < 64; sq++) {
+                keys[sq] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    public static long piece(int code, int square) {
+        return PIECE_KEYS[code - 1][square];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
@@ -1,53 +1,219 @@
 package com.chess.model;
 
+import com.chess.engine.Bitboards;
+import com.chess.engine.Fen;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
+// Held in a compact form so a node can keep a very large number of games in memory:
+// - the board is the bitboard Position, with no Piece objects behind it
+// - the history is one growable long array, one long per move: the packed move
+//   (from | to << 6 | piece code << 12 | promotion << 16) in the low 17 bits and the
+//   milliseconds since createdAt above them
+// - ids and times are primitives
+// Piece and Move objects are only built when something reads them, e.g. a GraphQL response.
 public class Game {
-    private Long id;
+    private static final long[] NO_MOVES = new long[0];
+    private static final int MOVE_BITS = 17;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    
+    private long id;
     private GameStatus status;
     private Piece.Color currentPlayer;
     private Piece.Color winner;
-    private LocalDateTime createdAt;
+    private long createdAtMillis;
     private int moveCount = 0;
-    private List<Piece> pieces = new ArrayList<>();
-    private List<Move> moves = new ArrayList<>();
+    private Position position;
+    
+    // Append-only, so a snapshot can share the array and read its own prefix of it
+    private long[] history = NO_MOVES;
+    private int historyLength;
+    
+    // Legal moves for the side to move (MoveGenerator-packed), generated once per position
+    private int[] legalMoves;
+    private int legalMovesAtMove = -1;
     
     // AI-related fields
     private GameType gameType;
     private AIDifficulty aiDifficulty;
     private Piece.Color aiColor;
     
+    // Serializes mutations of this game; readers use the published snapshot and never take it
+    private final ReentrantLock writeLock;
+    private volatile Game snapshot;
+    
+    // Used by GameCache to pick games to evict; an evicted Game is stale and must not be mutated
+    private volatile long lastAccessed = System.currentTimeMillis();
+    private volatile boolean evicted;
+    
     public Game() {
         this.status = GameStatus.ACTIVE;
         this.currentPlayer = Piece.Color.WHITE;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMillis = System.currentTimeMillis();
         this.gameType = GameType.HUMAN_VS_HUMAN; // Default
+        this.position = new Position(currentPlayer);
+        this.writeLock = new ReentrantLock();
+    }
+    
+    // Snapshot copy: shares the history array and the lock, copies the board
+    private Game(Game source) {
+        this.id = source.id;
+        this.status = source.status;
+        this.currentPlayer = source.currentPlayer;
+        this.winner = source.winner;
+        this.createdAtMillis = source.createdAtMillis;
+        this.moveCount = source.moveCount;
+        this.position = source.position.copy();
+        this.history = source.history;
+        this.historyLength = source.historyLength;
+        this.gameType = source.gameType;
+        this.aiDifficulty = source.aiDifficulty;
+        this.aiColor = source.aiColor;
+        this.writeLock = source.writeLock;
     }
     
     public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
+    public void setId(long id) { this.id = id; }
     
     public GameStatus getStatus() { return status; }
     public void setStatus(GameStatus status) { this.status = status; }
     
     public Piece.Color getCurrentPlayer() { return currentPlayer; }
-    public void setCurrentPlayer(Piece.Color currentPlayer) { this.currentPlayer = currentPlayer; }
+    public void setCurrentPlayer(Piece.Color currentPlayer) {
+        this.currentPlayer = currentPlayer;
+        this.legalMovesAtMove = -1;
+        position.setSideToMove(currentPlayer);
+    }
     
     public Piece.Color getWinner() { return winner; }
     public void setWinner(Piece.Color winner) { this.winner = winner; }
     
-    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getCreatedAt() { return dateTime(createdAtMillis); }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAtMillis = epochMillis(createdAt); }
+    
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
     
     public int getMoveCount() { return moveCount; }
     public void setMoveCount(int moveCount) { this.moveCount = moveCount; }
     
-    public List<Piece> getPieces() { return pieces; }
-    public void setPieces(List<Piece> pieces) { this.pieces = pieces; }
+    // Built from the board on every call; nothing keeps Piece objects between reads
+    public List<Piece> getPieces() {
+        long occupied = position.occupied();
+        List<Piece> pieces = new ArrayList<>(Long.bitCount(occupied));
+        while (occupied != 0) {
+            pieces.add(getPieceAt(Long.numberOfTrailingZeros(occupied)));
+            occupied &= occupied - 1;
+        }
+        return pieces;
+    }
+    
+    // Replaces the board with these pieces
+    public void setPieces(List<Piece> pieces) {
+        this.position = Position.of(pieces, currentPlayer);
+        this.legalMovesAtMove = -1;
+    }
+    
+    public Piece getPieceAt(int square) {
+        int code = position.pieceAt(square);
+        if (code == Position.EMPTY) {
+            return null;
+        }
+        Piece piece = new Piece(Position.typeOf(code), Position.colorOf(code), Bitboards.rowOf(square), Bitboards.colOf(square));
+        piece.setHasMoved(position.hasMoved(square));
+        return piece;
+    }
+    
+    public Position getPosition() {
+        return position;
+    }
+    
+    // Every position change goes through executeMove, which bumps moveCount, so the move
+    // number identifies the position the cached moves belong to
+    public int[] getLegalMoves() {
+        if (legalMovesAtMove != moveCount) {
+            int[] buffer = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegal(position, currentPlayer, buffer);
+            legalMoves = Arrays.copyOf(buffer, count);
+            legalMovesAtMove = moveCount;
+        }
+        return legalMoves;
+    }
+    
+    public boolean isLegalMovesCached() {
+        return legalMovesAtMove == moveCount;
+    }
+    
+    // Compact alternative to the piece list, see Fen
+    public String getBoard() {
+        return Fen.encode(position);
+    }
+    
+    // Appends a move to the history and counts it; piece is the Position code of the piece as
+    // it stood before moving. The board itself is updated by the caller.
+    public void recordMove(int from, int to, int piece, boolean promotion, long epochMillis) {
+        if (historyLength == history.length) {
+            history = Arrays.copyOf(history, Math.max(8, history.length * 2));
+        }
+        long elapsed = Math.max(0, epochMillis - createdAtMillis);
+        history[historyLength++] = elapsed << MOVE_BITS | from | to << 6 | piece << 12 | (promotion ? 1 << 16 : 0);
+        moveCount++;
+    }
+    
+    // Built on access, one Move per element read
+    public List<Move> getMoves() {
+        int length = historyLength;
+        return new AbstractList<>() {
+            @Override
+            public Move get(int index) {
+                if (index < 0 || index >= length) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return getMove(index);
+            }
+            
+            @Override
+            public int size() {
+                return length;
+            }
+        };
+    }
+    
+    public int getHistorySize() {
+        return historyLength;
+    }
     
-    public List<Move> getMoves() { return moves; }
-    public void setMoves(List<Move> moves) { this.moves = moves; }
+    // The packed move at index, as described above
+    public int getPackedMove(int index) {
+        return (int) (history[index] & MOVE_MASK);
+    }
+    
+    public long getMoveTimeMillis(int index) {
+        return createdAtMillis + (history[index] >>> MOVE_BITS);
+    }
+    
+    public Move getMove(int index) {
+        int packed = getPackedMove(index);
+        int from = packed & 0x3F;
+        int to = packed >> 6 & 0x3F;
+        int piece = packed >> 12 & 0xF;
+        boolean promotion = (packed & 1 << 16) != 0;
+        Move move = new Move(Bitboards.rowOf(from), Bitboards.colOf(from), Bitboards.rowOf(to), Bitboards.colOf(to),
+                             promotion ? Piece.PieceType.QUEEN : Position.typeOf(piece), Position.colorOf(piece));
+        move.setMoveNumber(index + 1);
+        move.setPromotion(promotion);
+        move.setEpochMillis(getMoveTimeMillis(index));
+        return move;
+    }
     
     // AI-related getters and setters
     public GameType getGameType() { return gameType; }
@@ -59,13 +225,48 @@ public class Game {
     public Piece.Color getAiColor() { return aiColor; }
     public void setAiColor(Piece.Color aiColor) { this.aiColor = aiColor; }
     
+    public ReentrantLock getWriteLock() { return writeLock; }
+    
+    public long getLastAccessed() { return lastAccessed; }
+    public void touch() { this.lastAccessed = System.currentTimeMillis(); }
+    
+    public boolean isEvicted() { return evicted; }
+    public void setEvicted(boolean evicted) { this.evicted = evicted; }
+    
+    // Latest published state: an immutable copy that is safe to read without the write lock
+    public Game getSnapshot() {
+        Game published = snapshot;
+        return published != null ? published : this;
+    }
+    
+    // Publishes the current state for readers; call while holding the write lock after each mutation.
+    // Costs a board copy, whatever the length of the game.
+    public void publishSnapshot() {
+        Game copy = new Game(this);
+        // Filled before publication so readers of the snapshot never generate moves
+        copy.legalMoves = getLegalMoves();
+        copy.legalMovesAtMove = moveCount;
+        copy.snapshot = copy;
+        
+        snapshot = copy;
+    }
+    
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toInstant().toEpochMilli();
+    }
+    
+    private static LocalDateTime dateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE);
+    }
+    
     // Helper methods
     public boolean isAIGame() {
-        return gameType == GameType.HUMAN_VS_AI;
+        return gameType == GameType.HUMAN_VS_AI || gameType == GameType.AI_VS_AI;
     }
     
+    // Both sides are the AI's in an AI_VS_AI game, which has no aiColor
     public boolean isAITurn() {
-        return isAIGame() && currentPlayer == aiColor;
+        return gameType == GameType.AI_VS_AI || (isAIGame() && currentPlayer == aiColor);
     }
     
     public enum GameStatus {
@@ -73,7 +274,7 @@ public class Game {
     }
     
     public enum GameType {
-        HUMAN_VS_HUMAN, HUMAN_VS_AI
+        HUMAN_VS_HUMAN, HUMAN_VS_AI, AI_VS_AI
     }
     
     public enum AIDifficulty {
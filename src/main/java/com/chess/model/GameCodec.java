@@ -0,0 +1,105 @@
+package com.chess.model;
+
+import com.chess.engine.Bitboards;
+import com.chess.engine.Position;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Byte form of a game, for snapshot files and the memory store's evicted games: 70 bytes plus
+// 8 per move, the same packed history Game keeps. Decoding restores the board directly, without
+// replaying the moves.
+//
+//   0  long   id
+//   8  long   created at, epoch millis
+//  16  byte   game type, AI difficulty, AI color, status, winner, side to move (-1 when unset)
+//  22  long   squares whose piece has moved
+//  30  32     board, one 4-bit Position piece code per square
+//  62  int    move count
+//  66  int    moves in the history, then per move:
+//             long from | to << 6 | piece code << 12 | promotion << 16, plus the milliseconds
+//                  since created at shifted left 17
+public final class GameCodec {
+
+    private static final int HEADER_BYTES = 70;
+
+    private GameCodec() {
+    }
+
+    // Call with the game's write lock held, or on a published snapshot
+    public static byte[] encode(Game game) {
+        int moves = game.getHistorySize();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + moves * 8);
+        out.putLong(game.getId());
+        out.putLong(game.getCreatedAtMillis());
+        out.put(ordinal(game.getGameType()));
+        out.put(ordinal(game.getAiDifficulty()));
+        out.put(ordinal(game.getAiColor()));
+        out.put(ordinal(game.getStatus()));
+        out.put(ordinal(game.getWinner()));
+        out.put(ordinal(game.getCurrentPlayer()));
+
+        Position position = game.getPosition();
+        out.putLong(position.movedMask());
+        for (int square = 0; square < 64; square += 2) {
+            out.put((byte) (position.pieceAt(square) | position.pieceAt(square + 1) << 4));
+        }
+
+        out.putInt(game.getMoveCount());
+        out.putInt(moves);
+        for (int i = 0; i < moves; i++) {
+            out.putLong((game.getMoveTimeMillis(i) - game.getCreatedAtMillis()) << 17 | game.getPackedMove(i));
+        }
+        return out.array();
+    }
+
+    public static Game decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        Game game = new Game();
+        game.setId(in.getLong());
+        game.setCreatedAtMillis(in.getLong());
+        game.setGameType(value(Game.GameType.values(), in.get()));
+        game.setAiDifficulty(value(Game.AIDifficulty.values(), in.get()));
+        game.setAiColor(value(Piece.Color.values(), in.get()));
+        game.setStatus(value(Game.GameStatus.values(), in.get()));
+        game.setWinner(value(Piece.Color.values(), in.get()));
+        Piece.Color sideToMove = value(Piece.Color.values(), in.get());
+
+        long moved = in.getLong();
+        List<Piece> pieces = new ArrayList<>(32);
+        for (int square = 0; square < 64; square += 2) {
+            int pair = in.get();
+            addPiece(pieces, square, pair & 0xF, moved);
+            addPiece(pieces, square + 1, pair >> 4 & 0xF, moved);
+        }
+        game.setPieces(pieces);
+        game.setCurrentPlayer(sideToMove);
+
+        int moveCount = in.getInt();
+        int moves = in.getInt();
+        for (int i = 0; i < moves; i++) {
+            long entry = in.getLong();
+            int packed = (int) (entry & 0x1FFFF);
+            long at = game.getCreatedAtMillis() + (entry >>> 17);
+            game.recordMove(packed & 0x3F, packed >> 6 & 0x3F, packed >> 12 & 0xF, (packed & 1 << 16) != 0, at);
+        }
+        game.setMoveCount(moveCount);
+        return game;
+    }
+
+    private static void addPiece(List<Piece> pieces, int square, int code, long moved) {
+        if (code != Position.EMPTY) {
+            Piece piece = new Piece(Position.typeOf(code), Position.colorOf(code), Bitboards.rowOf(square), Bitboards.colOf(square));
+            piece.setHasMoved((moved & Bitboards.bit(square)) != 0);
+            pieces.add(piece);
+        }
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    private static <E> E value(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
@@ -0,0 +1,57 @@
+package com.chess.model;
+
+import java.util.List;
+
+// Game state relative to a move number the client already has: the moves made since then and
+// the squares they changed, so the response size depends on how far behind the client is,
+// not on how long the game is
+public class GameDelta {
+    private Long id;
+    private Game.GameStatus status;
+    private Piece.Color currentPlayer;
+    private Piece.Color winner;
+    private int moveCount;
+    private int afterMoveNumber;
+    private List<Move> moves;
+    private List<SquareChange> changes;
+    private String board;
+    
+    public GameDelta(Game game, int afterMoveNumber, List<Move> moves, List<SquareChange> changes) {
+        this.id = game.getId();
+        this.status = game.getStatus();
+        this.currentPlayer = game.getCurrentPlayer();
+        this.winner = game.getWinner();
+        this.moveCount = game.getMoveCount();
+        this.afterMoveNumber = afterMoveNumber;
+        this.moves = moves;
+        this.changes = changes;
+        this.board = game.getBoard();
+    }
+    
+    public Long getId() { return id; }
+    public Game.GameStatus getStatus() { return status; }
+    public Piece.Color getCurrentPlayer() { return currentPlayer; }
+    public Piece.Color getWinner() { return winner; }
+    public int getMoveCount() { return moveCount; }
+    public int getAfterMoveNumber() { return afterMoveNumber; }
+    public List<Move> getMoves() { return moves; }
+    public List<SquareChange> getChanges() { return changes; }
+    public String getBoard() { return board; }
+    
+    // The current occupant of a square touched by one of the moves; piece is null if it is now empty
+    public static class SquareChange {
+        private int row;
+        private int col;
+        private Piece piece;
+        
+        public SquareChange(int row, int col, Piece piece) {
+            this.row = row;
+            this.col = col;
+            this.piece = piece;
+        }
+        
+        public int getRow() { return row; }
+        public int getCol() { return col; }
+        public Piece getPiece() { return piece; }
+    }
+}
@@ -0,0 +1,24 @@
+package com.chess.model;
+
+// One legal move for the side to move, as returned by the legalMoves queries
+public class LegalMove {
+    private int fromRow;
+    private int fromCol;
+    private int toRow;
+    private int toCol;
+    private boolean promotion;
+    
+    public LegalMove(int fromRow, int fromCol, int toRow, int toCol, boolean promotion) {
+        this.fromRow = fromRow;
+        this.fromCol = fromCol;
+        this.toRow = toRow;
+        this.toCol = toCol;
+        this.promotion = promotion;
+    }
+    
+    public int getFromRow() { return fromRow; }
+    public int getFromCol() { return fromCol; }
+    public int getToRow() { return toRow; }
+    public int getToCol() { return toCol; }
+    public boolean isPromotion() { return promotion; }
+}
@@ -1,6 +1,8 @@
 package com.chess.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 public class Move {
     private Long id;
@@ -10,11 +12,12 @@ public class Move {
     private int toCol;
     private Piece.PieceType pieceType;
     private Piece.Color pieceColor;
-    private LocalDateTime timestamp;
+    private long epochMillis;
     private int moveNumber;
+    private boolean promotion;
     
     public Move() {
-        this.timestamp = LocalDateTime.now();
+        this.epochMillis = System.currentTimeMillis();
     }
     
     public Move(int fromRow, int fromCol, int toRow, int toCol, 
@@ -35,7 +38,15 @@ public class Move {
     public int getToCol() { return toCol; }
     public Piece.PieceType getPieceType() { return pieceType; }
     public Piece.Color getPieceColor() { return pieceColor; }
-    public LocalDateTime getTimestamp() { return timestamp; }
+    // When the move was made; the LocalDateTime form is in this host's zone, for display only
+    public long getEpochMillis() { return epochMillis; }
+    public void setEpochMillis(long epochMillis) { this.epochMillis = epochMillis; }
+    public LocalDateTime getTimestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
     public int getMoveNumber() { return moveNumber; }
     public void setMoveNumber(int moveNumber) { this.moveNumber = moveNumber; }
+    // True when a pawn reached the last rank; pieceType is then the promoted piece
+    public boolean isPromotion() { return promotion; }
+    public void setPromotion(boolean promotion) { this.promotion = promotion; }
 }
@@ -0,0 +1,419 @@
+package com.chess.repository;
+
+import com.chess.config.StoreProperties;
+import com.chess.model.Game;
+import com.chess.model.GameCodec;
+import com.chess.model.Move;
+import com.chess.service.ChessService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Stores games in chess.store.directory as:
+// - journal-*.bin: the binary MoveJournal of every game created and move made, across all games
+// - <id>.snap: the GameCodec bytes of an active game, every snapshot-every-moves moves
+// - finished/<id>.snap: the same for a game that has ended, written when it ends
+// Making a move writes its journal record into mapped memory and, now and then, queues a
+// snapshot for a single writer thread, so it never waits for the disk. Recovery loads each
+// active snapshot and replays only the journal records after it, then snapshots every game and
+// archives the journal so the next recovery starts from a short one. A game whose records
+// fail to replay is moved to quarantine/ with them instead of being half restored. While the
+// server runs, the writer archives each full journal segment once snapshots cover it.
+@Repository
+@ConditionalOnProperty(prefix = "chess.store", name = "type", havingValue = "file", matchIfMissing = true)
+public class FileGameRepository implements GameRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(FileGameRepository.class);
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String QUARANTINE = "quarantine";
+    private static final String QUARANTINED_SUFFIX = ".journal";
+
+    @Autowired
+    private StoreProperties storeProperties;
+
+    private Path directory;
+    private Path finishedDirectory;
+    private MoveJournal journal;
+    private final BlockingQueue<Game> snapshots = new LinkedBlockingQueue<>();
+    // The latest snapshot of each game whose snapshot file is behind it, e.g. with journal
+    // records no snapshot file covers yet
+    private final Map<Long, Game> uncovered = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Path.of(storeProperties.getDirectory());
+        finishedDirectory = directory.resolve("finished");
+        Files.createDirectories(finishedDirectory);
+        journal = new MoveJournal(directory, storeProperties.getJournalSegmentMb() << 20,
+                                  storeProperties.getJournalCommitIntervalMs());
+        journal.open();
+        running = true;
+        writer = new Thread(this::writeLoop, "game-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Writes out every queued snapshot and commits the journal before the server stops
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    @Override
+    public void gameCreated(Game game) {
+        // Marked uncovered before the record exists, so a sealed segment never holds a record
+        // the writer doesn't know about
+        uncovered.put(game.getId(), game.getSnapshot());
+        journal.gameCreated(game);
+    }
+
+    @Override
+    public void moveMade(Game game, Move move) {
+        Game snapshot = game.getSnapshot();
+        if (move != null) {
+            uncovered.put(game.getId(), snapshot);
+            journal.moveMade(game.getId(), move);
+        } else {
+            // A status change alone isn't journaled, but load must still see it before the
+            // snapshot that records it is written
+            uncovered.put(game.getId(), snapshot);
+        }
+        if (game.getMoveCount() % storeProperties.getSnapshotEveryMoves() == 0 || game.getStatus() != Game.GameStatus.ACTIVE) {
+            snapshots.add(snapshot);
+        }
+    }
+
+    private void writeLoop() {
+        List<Game> batch = new ArrayList<>();
+        while (running || !snapshots.isEmpty()) {
+            try {
+                Game first = snapshots.poll(storeProperties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    snapshots.drainTo(batch);
+                    writeBatch(batch);
+                }
+                archiveSealedSegments();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} queued snapshots", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    // Only the newest snapshot of each game in the batch is written
+    private void writeBatch(List<Game> batch) {
+        Map<Long, Game> latest = new LinkedHashMap<>();
+        for (Game game : batch) {
+            latest.put(game.getId(), game);
+        }
+        writeSnapshots(latest.values());
+    }
+
+    // Archives full journal segments, first snapshotting any game in them that has records no
+    // snapshot covers yet, e.g. one abandoned between two periodic snapshots
+    private void archiveSealedSegments() {
+        MoveJournal.Segment segment;
+        while ((segment = journal.oldestSealed()) != null) {
+            Map<Long, Game> latest = new HashMap<>();
+            for (Long gameId : segment.getGameIds()) {
+                Game game = uncovered.get(gameId);
+                if (game != null) {
+                    latest.put(gameId, game);
+                }
+            }
+            // Snapshots queued before those reads go out now too, or one of them could later
+            // overwrite a newer snapshot written here
+            List<Game> queued = new ArrayList<>();
+            snapshots.drainTo(queued);
+            for (Game game : queued) {
+                latest.merge(game.getId(), game, FileGameRepository::newer);
+            }
+            writeSnapshots(latest.values());
+            journal.archive(segment);
+            log.debug("Archived journal segment {} covering {} games", segment.getFile().getFileName(),
+                      segment.getGameIds().size());
+        }
+    }
+
+    // Snapshots of one game: the one with more moves, or the finished one if only the status changed
+    private static Game newer(Game a, Game b) {
+        if (a.getMoveCount() != b.getMoveCount()) {
+            return a.getMoveCount() > b.getMoveCount() ? a : b;
+        }
+        return a.getStatus() != Game.GameStatus.ACTIVE ? a : b;
+    }
+
+    // Writes each snapshot, then syncs the directories so the renames survive a crash too;
+    // archiving the journal relies on snapshots being durable
+    private void writeSnapshots(Collection<Game> games) {
+        games.forEach(this::writeSnapshot);
+        syncDirectory(directory);
+        syncDirectory(finishedDirectory);
+    }
+
+    // A finished game's snapshot moves to finished/, out of the way of the next recovery
+    private void writeSnapshot(Game game) {
+        Path target = game.getStatus() == Game.GameStatus.ACTIVE ? snapshotFile(game.getId()) : finishedFile(game.getId());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(GameCodec.encode(game)));
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                Files.deleteIfExists(snapshotFile(game.getId()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Unless a newer move has been journaled since this snapshot was taken
+        uncovered.remove(game.getId(), game);
+    }
+
+    // Not every platform can open a directory to sync it; there the rename is as durable as it gets
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", dir, e);
+        }
+    }
+
+    // Only active games are loaded, so startup costs what is in play rather than every game ever
+    // stored; finished games are read back through load when someone asks for them
+    @Override
+    public List<Game> loadAll(ChessService chessService) {
+        long start = System.nanoTime();
+        List<Path> snapshotFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshotFiles = files.filter(file -> file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX)).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<Long, Game> games = new ConcurrentHashMap<>();
+        snapshotFiles.parallelStream()
+                .map(this::loadActiveSnapshot)
+                .filter(Objects::nonNull)
+                .forEach(game -> games.put(game.getId(), game));
+
+        // The journal is read in one sequential pass, then each game replays its own records.
+        // A game that finished after its records were written is only in finished/.
+        Map<Long, List<MoveJournal.Entry>> entries = new LinkedHashMap<>();
+        journal.read(entry -> entries.computeIfAbsent(entry.getGameId(), id -> new ArrayList<>()).add(entry));
+        entries.keySet().parallelStream()
+                .filter(gameId -> !games.containsKey(gameId) && Files.exists(finishedFile(gameId)))
+                .map(gameId -> loadSnapshot(finishedFile(gameId)))
+                .filter(Objects::nonNull)
+                .forEach(game -> games.put(game.getId(), game));
+        List<Long> failed = entries.entrySet().parallelStream()
+                .filter(gameEntries -> !replay(games, gameEntries.getKey(), gameEntries.getValue(), chessService))
+                .map(Map.Entry::getKey)
+                .toList();
+
+        // A half-replayed game would journal new moves under the numbers of its unapplied
+        // records, so it is set aside whole rather than recovered
+        if (!failed.isEmpty()) {
+            Path quarantine = directory.resolve(QUARANTINE).resolve(Long.toString(System.currentTimeMillis()));
+            for (Long gameId : failed) {
+                games.remove(gameId);
+                quarantine(quarantine, gameId, entries.remove(gameId));
+            }
+        }
+        games.values().forEach(Game::publishSnapshot);
+
+        // Every record is now in a snapshot or in quarantine, so the journal can start over
+        writeSnapshots(entries.keySet().stream().map(games::get).map(Game::getSnapshot).toList());
+        if (!entries.isEmpty() || !failed.isEmpty()) {
+            journal.archive();
+        }
+
+        List<Game> active = games.values().stream()
+                .filter(game -> game.getStatus() == Game.GameStatus.ACTIVE)
+                .toList();
+        log.info("Recovered {} active games from {} in {} ms", active.size(), directory,
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return active;
+    }
+
+    // The newest state of the game: the one waiting to be written if there is one, since it may
+    // be ahead of the file
+    @Override
+    public Game load(long gameId) {
+        Game pending = uncovered.get(gameId);
+        Game game;
+        if (pending != null) {
+            game = GameCodec.decode(GameCodec.encode(pending));
+        } else if (Files.exists(finishedFile(gameId))) {
+            game = loadSnapshot(finishedFile(gameId));
+        } else if (Files.exists(snapshotFile(gameId))) {
+            game = loadSnapshot(snapshotFile(gameId));
+        } else {
+            return null;
+        }
+        if (game != null) {
+            game.publishSnapshot();
+        }
+        return game;
+    }
+
+    // A game with a pending snapshot has it written now, so nothing keeps the game in memory
+    @Override
+    public void gameEvicted(Game game) {
+        Game pending = uncovered.get(game.getId());
+        if (pending != null) {
+            snapshots.add(pending);
+        }
+    }
+
+    // Read from file names alone: active and finished snapshots, and everything in quarantine/
+    @Override
+    public LongStream storedGameIds() {
+        LongStream.Builder ids = LongStream.builder();
+        for (Path dir : List.of(directory, finishedDirectory, directory.resolve(QUARANTINE))) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(dir, dir.endsWith(QUARANTINE) ? 2 : 1)) {
+                files.map(file -> file.getFileName().toString())
+                     .filter(name -> name.endsWith(SNAPSHOT_SUFFIX) || name.endsWith(QUARANTINED_SUFFIX))
+                     .map(name -> name.substring(0, name.indexOf('.')))
+                     .filter(id -> !id.isEmpty() && id.chars().allMatch(Character::isDigit))
+                     .forEach(id -> ids.add(Long.parseLong(id)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ids.build();
+    }
+
+    // Moves the game's snapshots to the quarantine directory and writes its journal records
+    // there in the audit log format, for someone to look at
+    private void quarantine(Path quarantine, Long gameId, List<MoveJournal.Entry> entries) {
+        try {
+            Files.createDirectories(quarantine);
+            Path snapshot = snapshotFile(gameId);
+            if (Files.exists(snapshot)) {
+                Files.move(snapshot, quarantine.resolve(snapshot.getFileName()));
+            }
+            Path finished = finishedFile(gameId);
+            if (Files.exists(finished)) {
+                Files.move(finished, quarantine.resolve(gameId + ".finished" + SNAPSHOT_SUFFIX));
+            }
+            List<String> lines = new ArrayList<>(entries.size());
+            for (MoveJournal.Entry entry : entries) {
+                lines.add(entry.getTimestamp() + " " + entry);
+            }
+            Files.write(quarantine.resolve(gameId + QUARANTINED_SUFFIX), lines, StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.warn("Game {} could not be recovered and was moved to {}", gameId, quarantine);
+    }
+
+    // Null for a stale snapshot left behind when a crash came between writing the game's
+    // finished snapshot and deleting this one
+    private Game loadActiveSnapshot(Path file) {
+        if (Files.exists(finishedDirectory.resolve(file.getFileName()))) {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+        return loadSnapshot(file);
+    }
+
+    private Game loadSnapshot(Path file) {
+        try {
+            return GameCodec.decode(Files.readAllBytes(file));
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not recover game from {}", file, e);
+            return null;
+        }
+    }
+
+    // Replays the records past the game's snapshot; records it already covers are skipped
+    private boolean replay(Map<Long, Game> games, Long gameId, List<MoveJournal.Entry> entries, ChessService chessService) {
+        try {
+            Game game = games.get(gameId);
+            for (MoveJournal.Entry entry : entries) {
+                if (entry.isCreated()) {
+                    if (game == null) {
+                        game = fromJournal(entry, chessService);
+                        games.put(gameId, game);
+                    }
+                } else if (game == null) {
+                    throw new RuntimeException("Moves journaled before the game was created");
+                } else if (entry.getMoveNumber() == game.getMoveCount() + 1 && game.getStatus() == Game.GameStatus.ACTIVE) {
+                    chessService.replayMove(game, entry.getFromRow(), entry.getFromCol(), entry.getToRow(), entry.getToCol(),
+                                            entry.getEpochMillis());
+                } else if (entry.getMoveNumber() > game.getMoveCount() + 1) {
+                    throw new RuntimeException("Journal is missing move " + (game.getMoveCount() + 1));
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not replay the journal for game {}", gameId, e);
+            return false;
+        }
+    }
+
+    private static Game fromJournal(MoveJournal.Entry created, ChessService chessService) {
+        Game game = new Game();
+        game.setId(created.getGameId());
+        game.setGameType(created.getGameType());
+        game.setAiDifficulty(created.getAiDifficulty());
+        game.setAiColor(created.getAiColor());
+        game.setCreatedAtMillis(created.getEpochMillis());
+        game.setPieces(chessService.initializeGame().getPieces());
+        return game;
+    }
+
+    private Path snapshotFile(long gameId) {
+        return directory.resolve(gameId + SNAPSHOT_SUFFIX);
+    }
+
+    private Path finishedFile(long gameId) {
+        return finishedDirectory.resolve(gameId + SNAPSHOT_SUFFIX);
+    }
+}
@@ -0,0 +1,31 @@
+package com.chess.repository;
+
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.service.ChessService;
+import java.util.List;
+import java.util.stream.LongStream;
+
+// Where games outlive the process. Writes are called under the game's write lock right after
+// publishSnapshot, in move order; implementations should not block on I/O there.
+public interface GameRepository {
+    
+    void gameCreated(Game game);
+    
+    void moveMade(Game game, Move move);
+    
+    // Rebuilds every stored game that is still being played, replaying moves through
+    // chessService; called once at startup
+    List<Game> loadAll(ChessService chessService);
+    
+    // Any other stored game, e.g. a finished one, with its snapshot published; null if there is none
+    Game load(long gameId);
+    
+    // The id of every game stored in any form, including ones set aside as unrecoverable, so
+    // that no new game is given one of them; called after loadAll
+    LongStream storedGameIds();
+    
+    // GameCache dropped the game from memory; load must still return it. Called under the
+    // game's write lock.
+    void gameEvicted(Game game);
+}
@@ -0,0 +1,79 @@
+package com.chess.repository;
+
+import com.chess.config.StoreProperties;
+import com.chess.model.Game;
+import com.chess.model.GameCodec;
+import com.chess.model.Move;
+import com.chess.service.ChessMetrics;
+import com.chess.service.ChessService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+// Keeps games only in memory: they are lost on restart (chess.store.type=memory). Games
+// evicted from the GameCache are held as GameCodec bytes, up to chess.store.memory-max-games.
+@Repository
+@ConditionalOnProperty(prefix = "chess.store", name = "type", havingValue = "memory")
+public class InMemoryGameRepository implements GameRepository {
+    
+    @Autowired
+    private StoreProperties storeProperties;
+    
+    @Autowired
+    private ChessMetrics metrics;
+    
+    private Map<Long, byte[]> evicted;
+    
+    @PostConstruct
+    public void init() {
+        int maxGames = storeProperties.getMemoryMaxGames();
+        evicted = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > maxGames;
+            }
+        });
+        metrics.monitorMemoryStore(evicted);
+    }
+    
+    @Override
+    public void gameCreated(Game game) {
+    }
+    
+    @Override
+    public void moveMade(Game game, Move move) {
+    }
+    
+    @Override
+    public List<Game> loadAll(ChessService chessService) {
+        return List.of();
+    }
+    
+    // Back in the cache, so the bytes are dropped until the next eviction
+    @Override
+    public Game load(long gameId) {
+        byte[] bytes = evicted.remove(gameId);
+        if (bytes == null) {
+            return null;
+        }
+        Game game = GameCodec.decode(bytes);
+        game.publishSnapshot();
+        return game;
+    }
+    
+    @Override
+    public LongStream storedGameIds() {
+        return LongStream.empty();
+    }
+    
+    @Override
+    public void gameEvicted(Game game) {
+        evicted.put(game.getId(), GameCodec.encode(game));
+    }
+}
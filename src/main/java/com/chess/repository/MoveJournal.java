@@ -0,0 +1,399 @@
+package com.chess.repository;
+
+import com.chess.engine.Bitboards;
+import com.chess.engine.Position;
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.model.Piece;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.stream.Stream;
+
+// Binary, append-only journal of every game created and every move made, across all games.
+// Records are fixed-width and written straight into memory-mapped segment files
+// (journal-000001.bin, ...), so appending a move is a 32-byte memory write. A committer thread
+// forces the current segment to disk every commit interval, covering all moves made since the
+// last commit with one fsync. Segments are preallocated and zero-filled, so the first record
+// with kind 0 marks the end of the journal. The OS may write a record's bytes back in any
+// order when power fails mid-flush, so each record carries a checksum and the first one that
+// doesn't match also ends the journal. Records are 32 bytes so none straddles a page. Once a
+// segment fills up it is sealed, and the repository archives it as soon as snapshots cover
+// every game it has records for.
+//
+// Record layout (big-endian):
+//   0  long  game id
+//   8  long  epoch millis of the event
+//  16  int   move number (0 for a created game)
+//  20  byte  kind: 1 = game created, 2 = move
+//  21  byte  created: game type      move: from square (row * 8 + col)
+//  22  byte  created: AI difficulty  move: to square
+//  23  byte  created: AI color       move: piece code before moving, | 0x80 when it promoted
+//  24  int   CRC32C of bytes 0-23
+//  28  int   unused, 0
+// Unset enum values are stored as -1.
+public class MoveJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(MoveJournal.class);
+
+    public static final int RECORD_BYTES = 32;
+    private static final int CHECKED_BYTES = 24;
+    public static final byte CREATED = 1;
+    public static final byte MOVE = 2;
+    private static final int PROMOTION = 0x80;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long commitIntervalMs;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentLimit;
+    private int segmentNumber;
+    private int writeOffset;
+    private boolean dirty;
+    // Games with records in the current segment, and the full segments not yet archived
+    private Set<Long> segmentGames = new HashSet<>();
+    private final Queue<Segment> sealed = new ConcurrentLinkedQueue<>();
+    private Thread committer;
+    private volatile boolean running;
+
+    // One decoded record
+    public static class Entry {
+        private final long gameId;
+        private final long epochMillis;
+        private final int moveNumber;
+        private final byte kind;
+        private final byte a, b, c;
+
+        Entry(ByteBuffer buffer, int offset) {
+            gameId = buffer.getLong(offset);
+            epochMillis = buffer.getLong(offset + 8);
+            moveNumber = buffer.getInt(offset + 16);
+            kind = buffer.get(offset + 20);
+            a = buffer.get(offset + 21);
+            b = buffer.get(offset + 22);
+            c = buffer.get(offset + 23);
+        }
+
+        public long getGameId() { return gameId; }
+        public int getMoveNumber() { return moveNumber; }
+        public boolean isCreated() { return kind == CREATED; }
+        public boolean isMove() { return kind == MOVE; }
+
+        public long getEpochMillis() { return epochMillis; }
+
+        public Instant getTimestamp() {
+            return Instant.ofEpochMilli(epochMillis);
+        }
+
+        // Game created
+        public Game.GameType getGameType() { return Game.GameType.values()[a]; }
+        public Game.AIDifficulty getAiDifficulty() { return b < 0 ? null : Game.AIDifficulty.values()[b]; }
+        public Piece.Color getAiColor() { return c < 0 ? null : Piece.Color.values()[c]; }
+
+        // Move
+        public int getFromRow() { return Bitboards.rowOf(a); }
+        public int getFromCol() { return Bitboards.colOf(a); }
+        public int getToRow() { return Bitboards.rowOf(b); }
+        public int getToCol() { return Bitboards.colOf(b); }
+        public Piece.PieceType getPieceType() { return Position.typeOf(c & 0xFF & ~PROMOTION); }
+        public Piece.Color getPieceColor() { return Position.colorOf(c & 0xFF & ~PROMOTION); }
+        public boolean isPromotion() { return (c & PROMOTION) != 0; }
+
+        @Override
+        public String toString() {
+            if (isCreated()) {
+                return "game " + gameId + " created " + getGameType() + " " + getAiDifficulty() + " " + getAiColor();
+            }
+            return "game " + gameId + " move " + moveNumber + " " + getPieceColor() + " " + getPieceType() + " "
+                 + getFromRow() + "," + getFromCol() + " -> " + getToRow() + "," + getToCol()
+                 + (isPromotion() ? " promotes" : "");
+        }
+    }
+
+    // A full segment and the games it has records for
+    public static class Segment {
+        private final Path file;
+        private final Set<Long> gameIds;
+
+        Segment(Path file, Set<Long> gameIds) {
+            this.file = file;
+            this.gameIds = gameIds;
+        }
+
+        public Path getFile() { return file; }
+        public Set<Long> getGameIds() { return gameIds; }
+    }
+
+    public MoveJournal(Path directory, int segmentBytes, long commitIntervalMs) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_BYTES;
+        this.commitIntervalMs = commitIntervalMs;
+    }
+
+    // Continues after the last record of the newest segment and starts the committer
+    public void open() {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            mapSegment(1);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            mapSegment(numberOf(last));
+            while (writeOffset < segmentLimit && isValid(segment, writeOffset)) {
+                writeOffset += RECORD_BYTES;
+            }
+            // A torn record and anything after it are wiped, so new records are never followed
+            // by old ones that would be read as if they came later
+            if (writeOffset < segmentLimit && !isEmpty(segment, writeOffset)) {
+                log.warn("Journal segment {} has a torn record at offset {}; discarding the rest of it",
+                         segmentNumber, writeOffset);
+                for (int offset = writeOffset; offset < segmentLimit; offset += 8) {
+                    segment.putLong(offset, 0);
+                }
+                segment.force();
+            }
+        }
+
+        running = true;
+        committer = new Thread(this::commitLoop, "move-journal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public void close() {
+        running = false;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            commit();
+            closeSegment();
+        }
+    }
+
+    public synchronized void gameCreated(Game game) {
+        ByteBuffer record = reserve();
+        record.putLong(writeOffset, game.getId());
+        record.putLong(writeOffset + 8, game.getCreatedAtMillis());
+        record.putInt(writeOffset + 16, 0);
+        record.put(writeOffset + 21, (byte) game.getGameType().ordinal());
+        record.put(writeOffset + 22, (byte) (game.getAiDifficulty() == null ? -1 : game.getAiDifficulty().ordinal()));
+        record.put(writeOffset + 23, (byte) (game.getAiColor() == null ? -1 : game.getAiColor().ordinal()));
+        finish(record, game.getId(), CREATED);
+    }
+
+    public synchronized void moveMade(Long gameId, Move move) {
+        Piece.PieceType moved = move.isPromotion() ? Piece.PieceType.PAWN : move.getPieceType();
+        int piece = Position.code(moved, move.getPieceColor()) | (move.isPromotion() ? PROMOTION : 0);
+
+        ByteBuffer record = reserve();
+        record.putLong(writeOffset, gameId);
+        record.putLong(writeOffset + 8, move.getEpochMillis());
+        record.putInt(writeOffset + 16, move.getMoveNumber());
+        record.put(writeOffset + 21, (byte) Bitboards.square(move.getFromRow(), move.getFromCol()));
+        record.put(writeOffset + 22, (byte) Bitboards.square(move.getToRow(), move.getToCol()));
+        record.put(writeOffset + 23, (byte) piece);
+        finish(record, gameId, MOVE);
+    }
+
+    // Rolls over to a new segment when the current one is full
+    private ByteBuffer reserve() {
+        if (writeOffset == segmentLimit) {
+            segment.force();
+            closeSegment();
+            sealed.add(new Segment(segmentFile(segmentNumber), segmentGames));
+            segmentGames = new HashSet<>();
+            mapSegment(segmentNumber + 1);
+        }
+        return segment;
+    }
+
+    // The checksum goes in last, so a record is only valid once its fields are written
+    private void finish(ByteBuffer record, long gameId, byte kind) {
+        record.put(writeOffset + 20, kind);
+        record.putInt(writeOffset + CHECKED_BYTES, checksum(record, writeOffset));
+        writeOffset += RECORD_BYTES;
+        segmentGames.add(gameId);
+        dirty = true;
+    }
+
+    // Group commit: one fsync for everything appended since the previous one
+    private void commitLoop() {
+        while (running) {
+            try {
+                Thread.sleep(commitIntervalMs);
+                commit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to commit the move journal", e);
+            }
+        }
+    }
+
+    private void commit() {
+        MappedByteBuffer toForce;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            toForce = segment;
+            dirty = false;
+        }
+        toForce.force();
+    }
+
+    // Calls the consumer with every record, oldest first, up to the end of each segment or its
+    // first torn record
+    public void read(Consumer<Entry> consumer) {
+        for (Path file : segments()) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int offset = 0;
+                for (; offset + RECORD_BYTES <= buffer.limit() && isValid(buffer, offset); offset += RECORD_BYTES) {
+                    consumer.accept(new Entry(buffer, offset));
+                }
+                if (offset + RECORD_BYTES <= buffer.limit() && !isEmpty(buffer, offset)) {
+                    log.warn("Journal {} has a torn record at offset {}; ignoring the rest of it", file, offset);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Moves every segment to archive/<epoch millis>/ and starts an empty journal; only safe once
+    // the games they describe are stored elsewhere. The archived segments keep the audit trail.
+    public synchronized void archive() {
+        commit();
+        closeSegment();
+        try {
+            Path archive = directory.resolve("archive").resolve(Long.toString(System.currentTimeMillis()));
+            Files.createDirectories(archive);
+            for (Path file : segments()) {
+                Files.move(file, archive.resolve(file.getFileName()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sealed.clear();
+        segmentGames = new HashSet<>();
+        mapSegment(1);
+    }
+
+    // The oldest full segment still in the journal, or null
+    public Segment oldestSealed() {
+        return sealed.peek();
+    }
+
+    // Moves a sealed segment to archive/<epoch millis>/; only safe once snapshots cover every
+    // record in it, since recovery will no longer see them
+    public synchronized void archive(Segment segment) {
+        if (!sealed.remove(segment)) {
+            return;
+        }
+        try {
+            Path archive = directory.resolve("archive").resolve(Long.toString(System.currentTimeMillis()));
+            Files.createDirectories(archive);
+            Files.move(segment.getFile(), archive.resolve(segment.getFile().getFileName()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Segments written with a larger segment size are used at their own size
+    private void mapSegment(int number) {
+        try {
+            channel = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+            segmentLimit = (int) Math.max(segmentBytes, channel.size() - channel.size() % RECORD_BYTES);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentLimit);
+            segmentNumber = number;
+            writeOffset = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeSegment() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isValid(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + 20) != 0 && buffer.getInt(offset + CHECKED_BYTES) == checksum(buffer, offset);
+    }
+
+    private static boolean isEmpty(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < RECORD_BYTES; i += 8) {
+            if (buffer.getLong(offset + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKED_BYTES));
+        return (int) crc.getValue();
+    }
+
+    private Path segmentFile(int number) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Prints a journal directory as an audit log, optionally for one game:
+    // java -cp <classpath> com.chess.repository.MoveJournal data/games [gameId]
+    public static void main(String[] args) {
+        Long gameId = args.length > 1 ? Long.valueOf(args[1]) : null;
+        new MoveJournal(Path.of(args[0]), 0, 0).read(entry -> {
+            if (gameId == null || entry.getGameId() == gameId) {
+                System.out.println(entry.getTimestamp() + " " + entry);
+            }
+        });
+    }
+
+    private static int numberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -1,61 +1,134 @@
 package com.chess.resolver;
 
+import com.chess.engine.Bitboards;
 import com.chess.model.Game;
+import com.chess.model.GameDelta;
+import com.chess.model.LegalMove;
 import com.chess.model.Move;
 import com.chess.model.Piece;
+import com.chess.repository.GameRepository;
+import com.chess.service.AIMoveScheduler;
+import com.chess.service.ChessAI;
+import com.chess.service.ChessMetrics;
 import com.chess.service.ChessService;
+import com.chess.service.GameCache;
+import com.chess.service.GameEventPublisher;
+import com.chess.service.GameIdAllocator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Controller
 public class GameResolver {
     
+    private static final Logger log = LoggerFactory.getLogger(GameResolver.class);
+    
     @Autowired
     private ChessService chessService;
     
-    private final Map<Long, Game> activeGames = new ConcurrentHashMap<>();
-    private Long gameIdCounter = 1L;
+    @Autowired
+    private AIMoveScheduler aiMoveScheduler;
+    
+    @Autowired
+    private ChessAI chessAI;
+    
+    @Autowired
+    private GameEventPublisher gameEventPublisher;
+    
+    @Autowired
+    private ChessMetrics metrics;
+    
+    @Autowired
+    private GameRepository gameRepository;
+    
+    // Every game, in memory or loaded from the store on access; see GameCache
+    @Autowired
+    private GameCache games;
+    
+    @Autowired
+    private GameIdAllocator gameIds;
+    
+    // Restores stored games and resumes any that were waiting on the AI. New ids continue past
+    // every stored one, not just the games that came back, or a game set aside as unrecoverable
+    // could have its id issued again.
+    @PostConstruct
+    public void init() {
+        List<Game> recovered = gameRepository.loadAll(chessService);
+        gameRepository.storedGameIds().forEach(gameIds::observe);
+        for (Game game : recovered) {
+            games.put(game);
+            gameIds.observe(game.getId());
+            
+            Game snapshot = game.getSnapshot();
+            if (snapshot.getStatus() == Game.GameStatus.ACTIVE && snapshot.isAITurn() && aiMoveScheduler.tryReserve()) {
+                aiMoveScheduler.schedule(game.getId(), () -> playAITurn(game));
+            }
+        }
+    }
     
+    // Queries read the game's published snapshot, so they never wait for a move in progress.
+    // Game end is detected under the write lock after every move, so reads don't recheck it.
     @QueryMapping
     public Game getGame(@Argument Long gameId) {
-        Game game = activeGames.get(gameId);
-        
-        // Always check for game end conditions when fetching game state
-        if (game != null && game.getStatus() == Game.GameStatus.ACTIVE) {
-            chessService.checkForGameEnd(game);
-        }
-        
-        return game;
+        Game game = games.get(gameId);
+        return game != null ? game.getSnapshot() : null;
+    }
+    
+    // Only what changed since the client's last known move, so long games don't cost more per request
+    @QueryMapping
+    public GameDelta getGameSince(@Argument Long gameId, @Argument int afterMoveNumber) {
+        Game game = games.get(gameId);
+        return game != null ? chessService.getGameSince(game.getSnapshot(), afterMoveNumber) : null;
     }
     
     @QueryMapping
     public List<Piece> getGamePieces(@Argument Long gameId) {
-        Game game = activeGames.get(gameId);
-        return game != null ? game.getPieces() : null;
+        Game game = games.get(gameId);
+        return game != null ? game.getSnapshot().getPieces() : null;
     }
     
     @QueryMapping
     public boolean checkMoveValidity(@Argument Long gameId, @Argument int fromRow,
                                      @Argument int fromCol, @Argument int toRow, @Argument int toCol) {
-        Game game = activeGames.get(gameId);
+        Game game = games.get(gameId);
         if (game == null) {
             return false;
         }
         
-        return chessService.isValidMove(game, fromRow, fromCol, toRow, toCol);
+        return chessService.isValidMove(game.getSnapshot(), fromRow, fromCol, toRow, toCol);
+    }
+    
+    // Every legal destination of the piece on fromRow, fromCol, in one request instead of a
+    // checkMoveValidity call per square. Empty if that piece can't move or it isn't its turn.
+    @QueryMapping
+    public List<LegalMove> legalMoves(@Argument Long gameId, @Argument int fromRow, @Argument int fromCol) {
+        Game game = games.get(gameId);
+        if (game == null || fromRow < 0 || fromRow > 7 || fromCol < 0 || fromCol > 7) {
+            return List.of();
+        }
+        return chessService.getLegalMoves(game.getSnapshot(), Bitboards.square(fromRow, fromCol));
+    }
+    
+    // Every legal move for the side to move
+    @QueryMapping
+    public List<LegalMove> allLegalMoves(@Argument Long gameId) {
+        Game game = games.get(gameId);
+        return game != null ? chessService.getLegalMoves(game.getSnapshot(), -1) : List.of();
     }
     
     @MutationMapping
     public Game createGame(@Argument String gameType, 
                           @Argument String aiDifficulty) {
         Game game = chessService.initializeGame();
-        game.setId(gameIdCounter++);
+        game.setId(gameIds.next());
         
         // Set game type and AI settings
         if ("HUMAN_VS_AI".equals(gameType)) {
@@ -66,93 +139,157 @@ public class GameResolver {
             game.setCurrentPlayer(Piece.Color.WHITE);
             
             // Set AI difficulty
-            if (aiDifficulty != null) {
-                try {
-                    game.setAiDifficulty(Game.AIDifficulty.valueOf(aiDifficulty.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    game.setAiDifficulty(Game.AIDifficulty.NORMAL); // Default
-                }
-            } else {
-                game.setAiDifficulty(Game.AIDifficulty.NORMAL); // Default
+            game.setAiDifficulty(parseDifficulty(aiDifficulty));
+        } else if ("AI_VS_AI".equals(gameType)) {
+            // Both sides play at the same level; the game runs on its own once created, so the
+            // AI job is reserved up front like the reply to a human move
+            if (!aiMoveScheduler.tryReserve()) {
+                throw new RuntimeException("Server is busy, please try again");
             }
+            game.setGameType(Game.GameType.AI_VS_AI);
+            game.setAiDifficulty(parseDifficulty(aiDifficulty));
         } else {
             game.setGameType(Game.GameType.HUMAN_VS_HUMAN);
             // Keep the default currentPlayer as WHITE from initializeGame()
         }
         
-        activeGames.put(game.getId(), game);
-        return game;
+        game.publishSnapshot();
+        games.put(game);
+        gameRepository.gameCreated(game);
+        metrics.gameCreated(game.getGameType());
+        log.info("Game {} created: {} {}", game.getId(), game.getGameType(), game.getAiDifficulty());
+        if (game.getGameType() == Game.GameType.AI_VS_AI) {
+            aiMoveScheduler.schedule(game.getId(), () -> playAITurn(game));
+        }
+        return game.getSnapshot();
+    }
+    
+    private static Game.AIDifficulty parseDifficulty(String aiDifficulty) {
+        if (aiDifficulty != null) {
+            try {
+                return Game.AIDifficulty.valueOf(aiDifficulty.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Fall through to the default
+            }
+        }
+        return Game.AIDifficulty.NORMAL;
     }
     
     @MutationMapping
     public Move makeMove(@Argument Long gameId, @Argument int fromRow,
                          @Argument int fromCol, @Argument int toRow, @Argument int toCol) {
-        Game game = activeGames.get(gameId);
+        // Locks the resident game, loading it first if it was evicted
+        Game game = games.lock(gameId);
         if (game == null) {
             throw new RuntimeException("Game not found");
         }
         
-        // Check if game is already over
-        if (game.getStatus() != Game.GameStatus.ACTIVE) {
-            throw new RuntimeException("Game is not active");
+        boolean reserved = false;
+        Move humanMove;
+        try {
+            // Check if game is already over
+            if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                throw new RuntimeException("Game is not active");
+            }
+            
+            // Check for game end conditions before allowing move
+            chessService.checkForGameEnd(game);
+            
+            if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                game.publishSnapshot();
+                gameRepository.moveMade(game, null);
+                gameEventPublisher.publish(game, null);
+                throw new RuntimeException("Game has ended");
+            }
+            
+            // Don't allow moves if it's AI's turn
+            if (game.isAIGame() && game.isAITurn()) {
+                throw new RuntimeException("It's AI's turn");
+            }
+            
+            // Reserve the AI reply before committing the human move, so a full AI queue
+            // rejects the request instead of leaving the game waiting on a reply that never comes
+            reserved = game.isAIGame() && aiMoveScheduler.tryReserve();
+            if (game.isAIGame() && !reserved) {
+                throw new RuntimeException("Server is busy, please try again");
+            }
+            
+            // Execute the human move
+            humanMove = chessService.executeMove(game, fromRow, fromCol, toRow, toCol);
+            
+            // Check if game ended after human move
+            chessService.checkForGameEnd(game);
+            if (game.isAIGame()) {
+                chessAI.opponentMoved(game);
+            }
+            game.publishSnapshot();
+            gameRepository.moveMade(game, humanMove);
+            gameEventPublisher.publish(game, humanMove);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                aiMoveScheduler.release();
+            }
+            throw e;
+        } finally {
+            game.getWriteLock().unlock();
         }
         
-        // Check for game end conditions before allowing move
-        chessService.checkForGameEnd(game);
-        
-        if (game.getStatus() != Game.GameStatus.ACTIVE) {
-            throw new RuntimeException("Game has ended");
+        // If it's an AI game and now it's AI's turn and game is still active, make AI move
+        Game snapshot = game.getSnapshot();
+        if (snapshot.getStatus() == Game.GameStatus.ACTIVE && snapshot.isAIGame() && snapshot.isAITurn()) {
+            aiMoveScheduler.schedule(game.getId(), () -> playAITurn(game));
+        } else {
+            if (reserved) {
+                aiMoveScheduler.release();
+            }
+            if (snapshot.getStatus() != Game.GameStatus.ACTIVE) {
+                aiMoveScheduler.cancel(game.getId());
+            }
         }
         
-        // Don't allow moves if it's AI's turn
-        if (game.isAIGame() && game.isAITurn()) {
-            throw new RuntimeException("It's AI's turn");
+        return humanMove;
+    }
+    
+    // Returns true if the AI is to move again, which only happens in an AI_VS_AI game
+    private boolean playAITurn(Game game) {
+        // Double-check game is still active before AI moves
+        if (game.getSnapshot().getStatus() != Game.GameStatus.ACTIVE) {
+            return false;
         }
         
-        // Execute the human move
-        Move humanMove = chessService.executeMove(game, fromRow, fromCol, toRow, toCol);
-        
-        // Check if game ended after human move
-        chessService.checkForGameEnd(game);
-        
-        // If it's an AI game and now it's AI's turn and game is still active, make AI move
-        if (game.getStatus() == Game.GameStatus.ACTIVE && game.isAIGame() && game.isAITurn()) {
-            // Make AI move in a separate thread to avoid blocking
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500); // Small delay to simulate "thinking"
-                    
-                    // Double-check game is still active before AI moves
-                    if (game.getStatus() == Game.GameStatus.ACTIVE) {
-                        Move aiMove = chessService.makeAIMove(game);
-                        if (aiMove != null) {
-                            System.out.println("AI move completed successfully");
-                        } else {
-                            System.out.println("AI move failed or game ended");
-                        }
-                        
-                        // Always check for game end after AI move attempt
-                        chessService.checkForGameEnd(game);
-                        
-                        // Log final game status
-                        System.out.println("Game status after AI move: " + game.getStatus());
-                        if (game.getWinner() != null) {
-                            System.out.println("Winner: " + game.getWinner());
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error making AI move: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }).start();
+        // makeAIMove applies the move and checks for game end under the game's write lock
+        Move aiMove = chessService.makeAIMove(game);
+        Game snapshot = game.getSnapshot();
+        if (aiMove == null) {
+            log.debug("Game {}: no AI move was made, status {}", game.getId(), snapshot.getStatus());
+            return false;
         }
-        
-        return humanMove;
+        return snapshot.getStatus() == Game.GameStatus.ACTIVE && snapshot.isAITurn();
     }
     
     @QueryMapping
     public boolean isAITurn(@Argument Long gameId) {
-        Game game = activeGames.get(gameId);
-        return game != null && game.isAITurn();
+        Game game = games.get(gameId);
+        return game != null && game.getSnapshot().isAITurn();
+    }
+    
+    // Emits the current state on subscribe, then again after every move or status change,
+    // including the AI's reply as soon as it is applied
+    @SubscriptionMapping
+    public Flux<Game> gameUpdated(@Argument Long gameId) {
+        Game game = games.get(gameId);
+        if (game == null) {
+            return Flux.error(new RuntimeException("Game not found"));
+        }
+        return gameEventPublisher.gameUpdates(game);
+    }
+    
+    @SubscriptionMapping
+    public Flux<Move> moveMade(@Argument Long gameId) {
+        Game game = games.get(gameId);
+        if (game == null) {
+            return Flux.error(new RuntimeException("Game not found"));
+        }
+        return gameEventPublisher.moves(game);
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.chess.service;
+
+import com.chess.config.AIProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// Runs AI replies on a bounded pool instead of one new thread per move.
+// - Backpressure: a fixed number of permits covers running plus queued jobs; callers reserve
+//   one before committing the human move, so an accepted move always gets its AI reply.
+// - Per-game ordering: at most one pending or running job per game.
+// - The artificial "thinking" delay is a scheduled delay, not a sleeping thread.
+// - Cancelling a game's job interrupts a running search (Search polls the interrupt flag).
+// - In an AI_VS_AI game the job re-arms itself after each move, keeping its permit, until the
+//   AI turn reports there is nothing more to play.
+@Service
+public class AIMoveScheduler {
+    
+    private static final Logger log = LoggerFactory.getLogger(AIMoveScheduler.class);
+    
+    @Autowired
+    private AIProperties aiProperties;
+    
+    @Autowired
+    private ChessMetrics metrics;
+    
+    private ScheduledThreadPoolExecutor executor;
+    private Semaphore permits;
+    private final Map<Long, Job> pending = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        AIProperties.Scheduler config = aiProperties.getScheduler();
+        int threads = config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors();
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ai-move-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        permits = new Semaphore(threads + config.getQueueCapacity());
+        metrics.monitorAIQueue(this::getQueuedJobs);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Reserves capacity for one AI job; false means the AI queue is full
+    public boolean tryReserve() {
+        return permits.tryAcquire();
+    }
+    
+    // Returns a reservation that will not be used
+    public void release() {
+        permits.release();
+    }
+    
+    // Schedules the AI turn using a reservation from tryReserve. The turn returns true if the
+    // AI is to move again, as in an AI_VS_AI game. Returns false (and gives the reservation
+    // back) if the game already has a job pending.
+    public boolean schedule(Long gameId, BooleanSupplier aiTurn) {
+        Job job = new Job(gameId, aiTurn);
+        boolean accepted = pending.putIfAbsent(gameId, job) == null;
+        if (!accepted) {
+            release();
+            return false;
+        }
+        job.arm();
+        return true;
+    }
+    
+    // Drops the game's pending job, interrupting it if it is already searching
+    public void cancel(Long gameId) {
+        Job job = pending.remove(gameId);
+        if (job != null) {
+            Future<?> future = job.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+            job.finish();
+        }
+    }
+    
+    public int getQueuedJobs() {
+        return executor.getQueue().size();
+    }
+    
+    private class Job implements Runnable {
+        private final Long gameId;
+        private final BooleanSupplier aiTurn;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Future<?> future;
+        private volatile long dueAt;
+        
+        Job(Long gameId, BooleanSupplier aiTurn) {
+            this.gameId = gameId;
+            this.aiTurn = aiTurn;
+        }
+        
+        void arm() {
+            long delayMs = aiProperties.getScheduler().getMoveDelayMs();
+            dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            future = executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            // Cancelled while re-arming: the new run must not happen either
+            if (finished.get()) {
+                future.cancel(false);
+            }
+        }
+        
+        @Override
+        public void run() {
+            if (finished.get()) {
+                return;
+            }
+            // Only the wait beyond the deliberate reply delay counts as queueing
+            metrics.recordQueueWait(System.nanoTime() - dueAt);
+            boolean again = false;
+            try {
+                again = aiTurn.getAsBoolean();
+            } catch (Exception e) {
+                log.error("Error making AI move for game {}", gameId, e);
+            } finally {
+                if (again && pending.get(gameId) == this && !finished.get()) {
+                    arm();
+                } else {
+                    pending.remove(gameId, this);
+                    finish();
+                }
+            }
+        }
+        
+        // Releases the permit exactly once, whether the job ran or was cancelled first
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -1,47 +1,201 @@
 package com.chess.service;
 
+import com.chess.config.AIProperties;
+import com.chess.engine.Bitboards;
+import com.chess.engine.Evaluation;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.OpeningBook;
+import com.chess.engine.OpeningBookBuilder;
+import com.chess.engine.Position;
+import com.chess.engine.Search;
+import com.chess.engine.Tablebase;
+import com.chess.engine.TablebaseGenerator;
+import com.chess.engine.Tablebases;
+import com.chess.engine.TranspositionTable;
 import com.chess.model.Game;
 import com.chess.model.Piece;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ChessAI {
     
+    private static final Logger log = LoggerFactory.getLogger(ChessAI.class);
+    
+    private static final String BUNDLED_OPENINGS = "book/openings.pgn";
+    
+    @Autowired
+    private AIProperties aiProperties;
+    
+    @Autowired
+    private ChessMetrics metrics;
+    
     private Random random = new Random();
     
-    // Piece values for evaluation
-    private static final int PAWN_VALUE = 100;
-    private static final int KNIGHT_VALUE = 320;
-    private static final int BISHOP_VALUE = 330;
-    private static final int ROOK_VALUE = 500;
-    private static final int QUEEN_VALUE = 900;
-    private static final int KING_VALUE = 20000;
+    // Shared by every search so positions scored in earlier iterations and turns are reused
+    private TranspositionTable transpositionTable;
+    
+    // Memory-mapped book of opening moves; null when disabled or unreadable
+    private OpeningBook openingBook;
+    
+    // Endgame tablebases; empty when disabled
+    private Tablebases tablebases = new Tablebases();
+    
+    // Runs Lazy SMP helper searches; the calling AI thread always runs the main search itself
+    private ExecutorService helperPool;
+    
+    // Pondering: at most one search per game on the human's time, on a small low-priority pool
+    private ThreadPoolExecutor ponderPool;
+    private final Map<Long, Ponder> ponders = new ConcurrentHashMap<>();
+    
+    public enum PonderOutcome {
+        // The human played the predicted reply and the AI turn used the ponder result
+        HIT,
+        // The human played something else, the ponder searched no particular reply, or it
+        // found no move
+        MISS,
+        // Every ponder thread was busy
+        SKIPPED
+    }
+    
+    // A search of the position the AI expects to face next: after the predicted reply if there
+    // is one, otherwise the human's own position, which still fills the transposition table
+    private static class Ponder {
+        private final long key;
+        private final boolean predicted;
+        private final Search search;
+        private Future<Search.Result> future;
+        
+        Ponder(long key, boolean predicted, Search search) {
+            this.key = key;
+            this.predicted = predicted;
+            this.search = search;
+        }
+        
+        void stop() {
+            search.abort();
+            future.cancel(true);
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        transpositionTable = new TranspositionTable(aiProperties.getTranspositionTableMb());
+        openingBook = loadOpeningBook(aiProperties.getOpeningBook());
+        tablebases = loadTablebases(aiProperties.getTablebaseDirectory(), aiProperties.getTablebaseEndings());
+        // No queue: a helper that would only start after its root search has returned
+        // is skipped instead of delaying other games' moves
+        int helperThreads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        helperPool = new ThreadPoolExecutor(helperThreads, helperThreads, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-search-helper-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // No queue: a ponder that can't start right away is skipped, so idle games never pile up work
+        int ponderThreads = Math.max(1, aiProperties.getPonder().getThreads());
+        AtomicInteger ponderCount = new AtomicInteger();
+        ponderPool = new ThreadPoolExecutor(ponderThreads, ponderThreads, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-ponder-" + ponderCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        helperPool.shutdownNow();
+        ponderPool.shutdownNow();
+    }
+    
+    // Maps the book file, compiling the bundled openings into it first if it doesn't exist.
+    // The AI still plays without a book, so a broken one is only logged.
+    private OpeningBook loadOpeningBook(String file) {
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        Path path = Path.of(file);
+        try {
+            if (!Files.exists(path)) {
+                OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_PLIES);
+                try (Reader pgn = new InputStreamReader(new ClassPathResource(BUNDLED_OPENINGS).getInputStream(),
+                                                        StandardCharsets.UTF_8)) {
+                    builder.read(pgn);
+                }
+                builder.write(path);
+                log.info("Built opening book {} from {}: {} lines, {} entries",
+                         path, BUNDLED_OPENINGS, builder.getGames(), builder.getEntries());
+            }
+            OpeningBook book = OpeningBook.open(path);
+            log.info("Opening book {}: {} entries", path, book.size());
+            return book;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Opening book {} unavailable, AI will search every move", path, e);
+            return null;
+        }
+    }
+    
+    // Maps the tables in the directory, building the configured endings first if they're missing.
+    // A table that fails to build only costs the AI its perfect play in that ending.
+    private Tablebases loadTablebases(String directory, List<String> endings) {
+        if (directory == null || directory.isBlank()) {
+            return new Tablebases();
+        }
+        Path path = Path.of(directory);
+        Tablebases loaded = Tablebases.open(path);
+        TablebaseGenerator generator = new TablebaseGenerator(loaded);
+        for (String ending : endings) {
+            try {
+                long start = System.nanoTime();
+                List<String> built = generator.build(path, ending.trim());
+                if (!built.isEmpty()) {
+                    log.info("Built tablebases {} in {} ms", built, (System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Tablebase {} unavailable", ending, e);
+            }
+        }
+        log.info("Endgame tablebases in {}: {}", path, new TreeSet<>(loaded.signatures()));
+        return loaded;
+    }
     
-    // Position bonus tables (for center control, development)
-    private static final int[][] PAWN_POSITION_BONUS = {
-        {0,  0,  0,  0,  0,  0,  0,  0},
-        {50, 50, 50, 50, 50, 50, 50, 50},
-        {10, 10, 20, 30, 30, 20, 10, 10},
-        {5,  5, 10, 25, 25, 10,  5,  5},
-        {0,  0,  0, 20, 20,  0,  0,  0},
-        {5, -5,-10,  0,  0,-10, -5,  5},
-        {5, 10, 10,-20,-20, 10, 10,  5},
-        {0,  0,  0,  0,  0,  0,  0,  0}
-    };
+    // True when the tablebases show that neither side can force a win, for game-end detection
+    public boolean isTablebaseDraw(Position position) {
+        return aiProperties.isAdjudicateTablebaseDraws() && tablebases.probe(position) == Tablebase.DRAW;
+    }
     
-    private static final int[][] KNIGHT_POSITION_BONUS = {
-        {-50,-40,-30,-30,-30,-30,-40,-50},
-        {-40,-20,  0,  0,  0,  0,-20,-40},
-        {-30,  0, 10, 15, 15, 10,  0,-30},
-        {-30,  5, 15, 20, 20, 15,  5,-30},
-        {-30,  0, 15, 20, 20, 15,  0,-30},
-        {-30,  5, 10, 15, 15, 10,  5,-30},
-        {-40,-20,  0,  5,  5,  0,-20,-40},
-        {-50,-40,-30,-30,-30,-30,-40,-50}
-    };
+    // Drops everything searched so far; benchmarks call this so each search starts from the same state
+    public void clearTranspositionTable() {
+        transpositionTable.clear();
+    }
     
     public static class AIMove {
         public int fromRow, fromCol, toRow, toCol;
@@ -56,340 +210,252 @@ public class ChessAI {
         }
     }
     
-    public AIMove getBestMove(Game game, Game.AIDifficulty difficulty, ChessService chessService) {
-        Piece.Color aiColor = game.getAiColor();
+    public AIMove getBestMove(Game game, Game.AIDifficulty difficulty) {
+        long start = System.nanoTime();
+        Piece.Color aiColor = game.getCurrentPlayer();
         
         // Add some randomness for normal difficulty
         boolean addRandomness = (difficulty == Game.AIDifficulty.NORMAL);
         
-        List<AIMove> possibleMoves = getAllPossibleMoves(game, aiColor, chessService);
-        
-        System.out.println("=== AI MOVE GENERATION ===");
-        System.out.println("AI Color: " + aiColor);
-        System.out.println("Difficulty: " + difficulty);
-        System.out.println("Found " + possibleMoves.size() + " possible moves");
+        // Search on a private copy so make/unmake never touches the live game
+        Position position = game.getPosition().copy();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegal(position, aiColor, moves);
         
-        if (possibleMoves.isEmpty()) {
-            System.out.println("ERROR: No valid moves found for AI!");
+        if (moveCount == 0) {
+            log.warn("Game {}: no valid moves found for AI", game.getId());
             return null;
         }
         
-        AIMove bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
-        
-        // Log first few moves for debugging
-        for (int i = 0; i < Math.min(5, possibleMoves.size()); i++) {
-            AIMove move = possibleMoves.get(i);
-            System.out.println("Move " + i + ": " + move.fromRow + "," + move.fromCol + " -> " + move.toRow + "," + move.toCol);
-        }
-        
-        // For impossible difficulty, try opening book first
-        if (difficulty == Game.AIDifficulty.IMPOSSIBLE && game.getMoveCount() < 6) {
-            AIMove openingMove = getOpeningMove(game, aiColor, chessService);
-            if (openingMove != null) {
-                System.out.println("Using opening book move: " + openingMove.fromRow + "," + openingMove.fromCol + " -> " + openingMove.toRow + "," + openingMove.toCol);
-                return openingMove;
+        // A book move needs no search
+        if (openingBook != null && aiProperties.getLevel(difficulty).isUseOpeningBook()) {
+            int bookMove = openingBook.probe(position, moves, moveCount, random);
+            if (bookMove != 0) {
+                log.debug("Game {}: using opening book move", game.getId());
+                metrics.recordSearch(difficulty, System.nanoTime() - start, 0, 0);
+                return toAIMove(bookMove, 0);
             }
         }
         
-        // Evaluate each possible move
-        for (AIMove move : possibleMoves) {
-            try {
-                // Simulate the move
-                Game tempGame = simulateMove(game, move.fromRow, move.fromCol, move.toRow, move.toCol);
-                
-                // Use simple evaluation for move selection
-                int score = evaluateBoard(tempGame, aiColor);
-                
-                // Add slight randomness for normal difficulty
-                if (addRandomness) {
-                    score += random.nextInt(50) - 25;
-                }
-                
-                // Bonus for capturing pieces
-                Piece capturedPiece = getPieceAt(game, move.toRow, move.toCol);
-                if (capturedPiece != null && capturedPiece.getColor() != aiColor) {
-                    score += getPieceValue(capturedPiece) / 2; // Capture bonus
-                }
-                
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                    bestMove.score = score;
-                }
-            } catch (Exception e) {
-                System.err.println("Error evaluating move " + move.fromRow + "," + move.fromCol + " -> " + move.toRow + "," + move.toCol + ": " + e.getMessage());
+        // Endings in the tablebases are played perfectly, without search
+        if (aiProperties.getLevel(difficulty).isUseTablebases()) {
+            int tablebaseMove = tablebases.bestMove(position, moves, moveCount);
+            if (tablebaseMove != 0) {
+                int value = tablebases.probe(position);
+                int score = Tablebase.isWin(value) ? Search.MATE_SCORE - Tablebase.pliesToEnd(value)
+                          : Tablebase.isLoss(value) ? -Search.MATE_SCORE + Tablebase.pliesToEnd(value) : 0;
+                log.debug("Game {}: using tablebase move, score {}", game.getId(), score);
+                metrics.recordSearch(difficulty, System.nanoTime() - start, 0, 0);
+                return toAIMove(tablebaseMove, score);
             }
         }
         
-        if (bestMove != null) {
-            System.out.println("Selected move: " + bestMove.fromRow + "," + bestMove.fromCol + " -> " + bestMove.toRow + "," + bestMove.toCol + " (score: " + bestMove.score + ")");
-        } else {
-            System.out.println("ERROR: Could not select any move from " + possibleMoves.size() + " possibilities!");
-        }
-        
-        return bestMove;
-    }
-    
-    private AIMove getOpeningMove(Game game, Piece.Color aiColor, ChessService chessService) {
-        // Simple opening book for black
-        if (aiColor == Piece.Color.BLACK) {
-            List<AIMove> possibleMoves = getAllPossibleMoves(game, aiColor, chessService);
-            
-            // Prefer central pawn moves, knight development
-            for (AIMove move : possibleMoves) {
-                Piece piece = getPieceAt(game, move.fromRow, move.fromCol);
-                if (piece == null) continue;
-                
-                // King's pawn
-                if (piece.getType() == Piece.PieceType.PAWN && move.fromRow == 1 && move.fromCol == 4) {
-                    return move;
-                }
-                // Queen's pawn
-                if (piece.getType() == Piece.PieceType.PAWN && move.fromRow == 1 && move.fromCol == 3) {
-                    return move;
-                }
-                // Knight development
-                if (piece.getType() == Piece.PieceType.KNIGHT && 
-                    (move.toRow == 2 && (move.toCol == 2 || move.toCol == 5))) {
-                    return move;
-                }
-            }
+        if (addRandomness) {
+            AIMove selected = getOnePlyMove(position, aiColor, moves, moveCount);
+            metrics.recordSearch(difficulty, System.nanoTime() - start, 0, 0);
+            return selected;
         }
-        return null;
+        return getSearchedMove(game, position, difficulty, start);
     }
     
-    private int evaluateBoard(Game game, Piece.Color aiColor) {
-        int score = 0;
-        
-        for (Piece piece : game.getPieces()) {
-            int pieceValue = getPieceValue(piece);
-            int positionBonus = getPositionBonus(piece);
-            
-            int totalValue = pieceValue + positionBonus;
-            
-            if (piece.getColor() == aiColor) {
-                score += totalValue;
-            } else {
-                score -= totalValue;
-            }
-        }
+    // HARD and IMPOSSIBLE: alpha-beta search within the difficulty's depth and time budget
+    private AIMove getSearchedMove(Game game, Position position, Game.AIDifficulty difficulty, long start) {
+        AIProperties.Level level = aiProperties.getLevel(difficulty);
+        int threads = level.getThreads() > 0 ? level.getThreads() : Runtime.getRuntime().availableProcessors();
         
-        // Add mobility bonus (simplified) - only if moves exist
-        try {
-            List<AIMove> aiMoves = getAllPossibleMoves(game, aiColor, null);
-            List<AIMove> opponentMoves = getAllPossibleMoves(game, getOpponentColor(aiColor), null);
-            
-            if (!aiMoves.isEmpty()) {
-                score += aiMoves.size() * 10;
+        Search.Result pondered = takePonderResult(game.getId(), position);
+        if (pondered != null) {
+            // The search already ran on the human's time: only the wait for it counts
+            long elapsed = System.nanoTime() - start;
+            metrics.recordSearch(difficulty, elapsed, 0, 0);
+            if (log.isDebugEnabled()) {
+                log.debug("Game {}: ponder hit, depth {} after {} nodes, waited {} ms, score {}",
+                          game.getId(), pondered.depth, pondered.nodes, elapsed / 1_000_000, pondered.score);
             }
-            if (!opponentMoves.isEmpty()) {
-                score -= opponentMoves.size() * 10;
-            }
-        } catch (Exception e) {
-            // If mobility calculation fails, continue with material evaluation
-            System.err.println("Error calculating mobility: " + e.getMessage());
+            return toAIMove(pondered.move, pondered.score);
         }
         
-        return score;
-    }
-    
-    private int getPieceValue(Piece piece) {
-        switch (piece.getType()) {
-            case PAWN: return PAWN_VALUE;
-            case KNIGHT: return KNIGHT_VALUE;
-            case BISHOP: return BISHOP_VALUE;
-            case ROOK: return ROOK_VALUE;
-            case QUEEN: return QUEEN_VALUE;
-            case KING: return KING_VALUE;
-            default: return 0;
+        // Even on one thread the result depends on what earlier searches left in the shared table
+        // and on how far the time budget got, so the same position can get a different move
+        transpositionTable.newSearch();
+        Search.Result result = threads > 1 ? lazySmpSearch(position, level, threads)
+                                           : new Search(position, transpositionTable).search(level.getMaxDepth(), level.getTimeBudgetMs());
+        long elapsed = System.nanoTime() - start;
+        metrics.recordSearch(difficulty, elapsed, result.depth, result.nodes);
+        if (log.isDebugEnabled()) {
+            log.debug("Game {}: search reached depth {} after {} nodes in {} ms on {} thread(s), score {}",
+                      game.getId(), result.depth, result.nodes, elapsed / 1_000_000, threads, result.score);
         }
+        return toAIMove(result.move, result.score);
     }
     
-    private int getPositionBonus(Piece piece) {
-        int row = piece.getRow();
-        int col = piece.getCol();
-        
-        // Flip row for black pieces
-        if (piece.getColor() == Piece.Color.BLACK) {
-            row = 7 - row;
-        }
-        
-        switch (piece.getType()) {
-            case PAWN:
-                return PAWN_POSITION_BONUS[row][col];
-            case KNIGHT:
-                return KNIGHT_POSITION_BONUS[row][col];
-            case BISHOP:
-            case ROOK:
-                // Prefer center squares
-                return (3 - Math.abs(3 - row)) + (3 - Math.abs(3 - col));
-            case QUEEN:
-                // Queens are good in center but not too early
-                return ((3 - Math.abs(3 - row)) + (3 - Math.abs(3 - col))) / 2;
-            case KING:
-                // Kings prefer corners in endgame, but we'll keep it simple
-                return 0;
-            default:
-                return 0;
+    // Lazy SMP: helpers search copies of the position through the shared transposition table.
+    // The main search decides when to stop; a helper's move is used only if it got deeper.
+    private Search.Result lazySmpSearch(Position position, AIProperties.Level level, int threads) {
+        List<Search> helpers = new ArrayList<>(threads - 1);
+        List<Future<Search.Result>> helperResults = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            Search helper = new Search(position.copy(), transpositionTable);
+            int startDepth = 1 + (i % 2);
+            try {
+                helperResults.add(helperPool.submit(() -> helper.search(startDepth, level.getMaxDepth(), level.getTimeBudgetMs())));
+                helpers.add(helper);
+            } catch (RejectedExecutionException e) {
+                // Every helper thread is busy with other games' searches
+                break;
+            }
         }
-    }
-    
-    private List<AIMove> getAllPossibleMoves(Game game, Piece.Color color, ChessService chessService) {
-        List<AIMove> moves = new ArrayList<>();
         
-        List<Piece> pieces = game.getPieces().stream()
-                .filter(p -> p.getColor() == color)
-                .toList();
+        Search.Result best = new Search(position, transpositionTable).search(level.getMaxDepth(), level.getTimeBudgetMs());
+        long nodes = best.nodes;
         
-        for (Piece piece : pieces) {
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    try {
-                        if (chessService != null) {
-                            // Use proper validation when ChessService is available
-                            if (chessService.isValidMove(game, piece.getRow(), piece.getCol(), row, col)) {
-                                moves.add(new AIMove(piece.getRow(), piece.getCol(), row, col, 0));
-                            }
-                        } else {
-                            // For evaluation purposes when chessService is null, use simplified validation
-                            if (isBasicValidMove(game, piece, piece.getRow(), piece.getCol(), row, col)) {
-                                moves.add(new AIMove(piece.getRow(), piece.getCol(), row, col, 0));
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Skip this move if validation fails
-                        continue;
+        helpers.forEach(Search::abort);
+        for (Future<Search.Result> future : helperResults) {
+            try {
+                Search.Result helperResult = future.get();
+                if (helperResult != null && helperResult.move != 0) {
+                    nodes += helperResult.nodes;
+                    if (helperResult.depth > best.depth) {
+                        best = helperResult;
                     }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Helper search failed", e.getCause());
             }
         }
         
-        return moves;
+        return new Search.Result(best.move, best.score, best.depth, nodes);
     }
     
-    private Game simulateMove(Game originalGame, int fromRow, int fromCol, int toRow, int toCol) {
-        Game tempGame = new Game();
-        tempGame.setId(originalGame.getId());
-        tempGame.setCurrentPlayer(originalGame.getCurrentPlayer());
-        tempGame.setStatus(originalGame.getStatus());
-        tempGame.setMoveCount(originalGame.getMoveCount());
-        tempGame.setGameType(originalGame.getGameType());
-        tempGame.setAiDifficulty(originalGame.getAiDifficulty());
-        tempGame.setAiColor(originalGame.getAiColor());
-        
-        // Copy pieces
-        List<Piece> tempPieces = new ArrayList<>();
-        for (Piece piece : originalGame.getPieces()) {
-            Piece tempPiece = new Piece(piece.getType(), piece.getColor(), piece.getRow(), piece.getCol());
-            tempPiece.setHasMoved(piece.isHasMoved());
-            tempPieces.add(tempPiece);
+    // Starts pondering after an AI move, with the game's write lock held so the human's reply
+    // can't arrive first. Predicts the reply from the transposition table, where the search that
+    // chose the AI move left its best line.
+    public void startPondering(Game game) {
+        stopPondering(game.getId());
+        if (!aiProperties.getPonder().isEnabled() || game.getStatus() != Game.GameStatus.ACTIVE
+                || game.getGameType() != Game.GameType.HUMAN_VS_AI || game.isAITurn()
+                || game.getAiDifficulty() == Game.AIDifficulty.NORMAL) {
+            return;
         }
-        tempGame.setPieces(tempPieces);
         
-        // Execute the move on the temp game
-        Piece piece = getPieceAt(tempGame, fromRow, fromCol);
-        if (piece != null) {
-            Piece capturedPiece = getPieceAt(tempGame, toRow, toCol);
-            if (capturedPiece != null) {
-                tempGame.getPieces().remove(capturedPiece);
-            }
-            piece.setRow(toRow);
-            piece.setCol(toCol);
-            piece.setHasMoved(true);
+        Position position = game.getPosition().copy();
+        int reply = TranspositionTable.move(transpositionTable.probe(position.key()));
+        boolean predicted = false;
+        for (int move : game.getLegalMoves()) {
+            predicted |= move == reply;
+        }
+        if (predicted) {
+            position.makeMove(reply);
         }
         
-        return tempGame;
-    }
-    
-    // Helper method to get piece at position
-    private Piece getPieceAt(Game game, int row, int col) {
-        return game.getPieces().stream()
-                .filter(piece -> piece.getRow() == row && piece.getCol() == col)
-                .findFirst()
-                .orElse(null);
+        AIProperties.Level level = aiProperties.getLevel(game.getAiDifficulty());
+        Ponder ponder = new Ponder(position.key(), predicted, new Search(position, transpositionTable));
+        try {
+            ponder.future = ponderPool.submit(() -> ponder.search.search(level.getMaxDepth(), level.getTimeBudgetMs()));
+        } catch (RejectedExecutionException e) {
+            metrics.ponderFinished(PonderOutcome.SKIPPED);
+            return;
+        }
+        ponders.put(game.getId(), ponder);
+        if (log.isDebugEnabled()) {
+            log.debug("Game {}: pondering {}", game.getId(), predicted
+                      ? "on predicted reply " + Bitboards.rowOf(MoveGenerator.from(reply)) + "," + Bitboards.colOf(MoveGenerator.from(reply))
+                        + " -> " + Bitboards.rowOf(MoveGenerator.to(reply)) + "," + Bitboards.colOf(MoveGenerator.to(reply))
+                      : "without a predicted reply");
+        }
     }
     
-    // Basic move validation for when chessService is not available
-    private boolean isBasicValidMove(Game game, Piece piece, int fromRow, int fromCol, int toRow, int toCol) {
-        if (fromRow == toRow && fromCol == toCol) return false;
-        
-        Piece targetPiece = getPieceAt(game, toRow, toCol);
-        if (targetPiece != null && targetPiece.getColor() == piece.getColor()) {
-            return false;
+    // The human moved: a ponder on the position they reached carries on for the AI turn to
+    // pick up, anything else is stopped at once
+    public void opponentMoved(Game game) {
+        Ponder ponder = ponders.get(game.getId());
+        if (ponder == null) {
+            return;
+        }
+        if (ponder.predicted && ponder.key == game.getPosition().key() && game.getStatus() == Game.GameStatus.ACTIVE) {
+            return;
+        }
+        if (ponders.remove(game.getId(), ponder)) {
+            ponder.stop();
+            metrics.ponderFinished(PonderOutcome.MISS);
         }
-        
-        return isValidPieceMove(game, piece, fromRow, fromCol, toRow, toCol);
     }
     
-    private boolean isValidPieceMove(Game game, Piece piece, int fromRow, int fromCol, int targetRow, int targetCol) {
-        int rowDiff = Math.abs(targetRow - fromRow);
-        int colDiff = Math.abs(targetCol - fromCol);
-        
-        switch (piece.getType()) {
-            case PAWN:
-                return isValidPawnMove(game, piece, fromRow, fromCol, targetRow, targetCol);
-            case ROOK:
-                return (rowDiff == 0 || colDiff == 0) && isPathClearInGame(game, fromRow, fromCol, targetRow, targetCol);
-            case BISHOP:
-                return (rowDiff == colDiff) && isPathClearInGame(game, fromRow, fromCol, targetRow, targetCol);
-            case QUEEN:
-                return (rowDiff == 0 || colDiff == 0 || rowDiff == colDiff) && 
-                       isPathClearInGame(game, fromRow, fromCol, targetRow, targetCol);
-            case KING:
-                return rowDiff <= 1 && colDiff <= 1;
-            case KNIGHT:
-                return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
-            default:
-                return false;
+    public void stopPondering(Long gameId) {
+        Ponder ponder = ponders.remove(gameId);
+        if (ponder != null) {
+            ponder.stop();
         }
     }
     
-    private boolean isValidPawnMove(Game game, Piece pawn, int fromRow, int fromCol, int toRow, int toCol) {
-        int direction = (pawn.getColor() == Piece.Color.WHITE) ? -1 : 1;
-        int rowDiff = toRow - fromRow;
-        int colDiff = Math.abs(toCol - fromCol);
-        
-        if (colDiff == 0) {
-            // Moving forward
-            if (rowDiff == direction && getPieceAt(game, toRow, toCol) == null) {
-                return true;
-            }
-            // Double move from starting position
-            if (!pawn.isHasMoved() && rowDiff == 2 * direction && 
-                getPieceAt(game, toRow, toCol) == null) {
-                return true;
-            }
+    // The ponder result for the position the AI now has to move in; null if the game wasn't
+    // pondered on it. A ponder on any other position is cancelled without waiting for it; only
+    // a matching one is waited for, to the end of its budget if it still runs. Every ponder
+    // taken here counts as a hit or a miss.
+    private Search.Result takePonderResult(Long gameId, Position position) {
+        Ponder ponder = ponders.remove(gameId);
+        if (ponder == null) {
+            return null;
         }
-        else if (colDiff == 1 && rowDiff == direction) {
-            // Diagonal capture
-            Piece targetPiece = getPieceAt(game, toRow, toCol);
-            return targetPiece != null && targetPiece.getColor() != pawn.getColor();
+        if (!ponder.predicted || ponder.key != position.key()) {
+            ponder.stop();
+            metrics.ponderFinished(PonderOutcome.MISS);
+            return null;
         }
-        
-        return false;
+        Search.Result result = null;
+        try {
+            result = ponder.future.get();
+        } catch (InterruptedException e) {
+            ponder.stop();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            log.debug("Game {}: ponder search ended without a result", gameId, e);
+        }
+        if (result == null || result.move == 0) {
+            metrics.ponderFinished(PonderOutcome.MISS);
+            return null;
+        }
+        metrics.ponderFinished(PonderOutcome.HIT);
+        return result;
     }
     
-    private boolean isPathClearInGame(Game game, int fromRow, int fromCol, int toRow, int toCol) {
-        int rowStep = Integer.compare(toRow, fromRow);
-        int colStep = Integer.compare(toCol, fromCol);
-        
-        int currentRow = fromRow + rowStep;
-        int currentCol = fromCol + colStep;
-        
-        while (currentRow != toRow || currentCol != toCol) {
-            if (getPieceAt(game, currentRow, currentCol) != null) {
-                return false;
+    // NORMAL: score every move one ply deep with a little noise
+    private AIMove getOnePlyMove(Position position, Piece.Color aiColor, int[] moves, int moveCount) {
+        int bestMove = 0;
+        int bestScore = Integer.MIN_VALUE;
+        // Evaluate each possible move
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            int capturedPiece = position.pieceAt(MoveGenerator.to(move));
+            
+            position.makeMove(move);
+            int score = Evaluation.evaluate(position, aiColor);
+            position.unmakeMove();
+            
+            // Add slight randomness
+            score += random.nextInt(50) - 25;
+            
+            // Bonus for capturing pieces
+            if (capturedPiece != Position.EMPTY) {
+                score += Evaluation.pieceValue(Position.typeOf(capturedPiece)) / 2; // Capture bonus
+            }
+            
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
             }
-            currentRow += rowStep;
-            currentCol += colStep;
         }
         
-        return true;
+        return toAIMove(bestMove, bestScore);
     }
     
-    private Piece.Color getOpponentColor(Piece.Color color) {
-        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    private AIMove toAIMove(int move, int score) {
+        int from = MoveGenerator.from(move);
+        int to = MoveGenerator.to(move);
+        return new AIMove(Bitboards.rowOf(from), Bitboards.colOf(from),
+                          Bitboards.rowOf(to), Bitboards.colOf(to), score);
     }
 }
-   
\ No newline at end of file
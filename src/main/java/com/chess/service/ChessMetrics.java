@@ -0,0 +1,142 @@
+package com.chess.service;
+
+import com.chess.model.Game;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Engine and game metrics, exposed through Actuator under /actuator/metrics/chess.*.
+// Meters are registered once up front, so recording on the hot paths is a lookup-free
+// counter increment or timer update.
+@Component
+public class ChessMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Counter validMoves;
+    private Counter invalidMoves;
+    private Timer moveGeneration;
+    private Timer queueWait;
+    private Counter searchNodes;
+    private final Map<Game.AIDifficulty, Timer> searchTime = new EnumMap<>(Game.AIDifficulty.class);
+    private final Map<Game.AIDifficulty, DistributionSummary> searchDepth = new EnumMap<>(Game.AIDifficulty.class);
+    private final Map<Game.AIDifficulty, DistributionSummary> searchNps = new EnumMap<>(Game.AIDifficulty.class);
+    private final Map<Game.GameType, Counter> gamesCreated = new EnumMap<>(Game.GameType.class);
+    private final Map<Game.GameStatus, Counter> gamesFinished = new EnumMap<>(Game.GameStatus.class);
+    private final Map<GameCache.Eviction, Counter> gamesEvicted = new EnumMap<>(GameCache.Eviction.class);
+    private Counter gamesRestored;
+    private final Map<ChessAI.PonderOutcome, Counter> ponders = new EnumMap<>(ChessAI.PonderOutcome.class);
+
+    @PostConstruct
+    public void init() {
+        validMoves = Counter.builder("chess.move.validations").tag("result", "valid")
+                .description("Move validations").register(registry);
+        invalidMoves = Counter.builder("chess.move.validations").tag("result", "invalid")
+                .description("Move validations").register(registry);
+        moveGeneration = Timer.builder("chess.movegen")
+                .description("Legal move generation for a new position").register(registry);
+        queueWait = Timer.builder("chess.ai.queue.wait")
+                .description("Time an AI job waited for a thread beyond its scheduled reply delay").register(registry);
+        searchNodes = Counter.builder("chess.ai.search.nodes")
+                .description("Nodes visited by AI searches").register(registry);
+
+        for (Game.AIDifficulty difficulty : Game.AIDifficulty.values()) {
+            String tag = difficulty.name().toLowerCase();
+            searchTime.put(difficulty, Timer.builder("chess.ai.search").tag("difficulty", tag)
+                    .description("Time to choose an AI move").register(registry));
+            searchDepth.put(difficulty, DistributionSummary.builder("chess.ai.search.depth").tag("difficulty", tag)
+                    .description("Completed search depth").register(registry));
+            searchNps.put(difficulty, DistributionSummary.builder("chess.ai.search.nps").tag("difficulty", tag)
+                    .baseUnit("nodes/s").description("Search speed").register(registry));
+        }
+        for (Game.GameType type : Game.GameType.values()) {
+            gamesCreated.put(type, Counter.builder("chess.games.created").tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        for (Game.GameStatus status : Game.GameStatus.values()) {
+            if (status != Game.GameStatus.ACTIVE) {
+                gamesFinished.put(status, Counter.builder("chess.games.finished").tag("status", status.name().toLowerCase())
+                        .register(registry));
+            }
+        }
+        for (GameCache.Eviction reason : GameCache.Eviction.values()) {
+            gamesEvicted.put(reason, Counter.builder("chess.games.evicted").tag("reason", reason.name().toLowerCase())
+                    .description("Games dropped from memory").register(registry));
+        }
+        gamesRestored = Counter.builder("chess.games.restored")
+                .description("Evicted or stored games loaded back into memory on access").register(registry);
+        for (ChessAI.PonderOutcome outcome : ChessAI.PonderOutcome.values()) {
+            ponders.put(outcome, Counter.builder("chess.ai.ponder").tag("outcome", outcome.name().toLowerCase())
+                    .description("Searches on the opponent's time, by whether they predicted the reply").register(registry));
+        }
+    }
+
+    public void recordValidation(boolean valid) {
+        (valid ? validMoves : invalidMoves).increment();
+    }
+
+    public void recordMoveGeneration(long nanos) {
+        moveGeneration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWait.record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    // Searched moves report depth and nodes; one-ply and book moves only their time
+    public void recordSearch(Game.AIDifficulty difficulty, long nanos, int depth, long nodes) {
+        searchTime.get(difficulty).record(nanos, TimeUnit.NANOSECONDS);
+        if (nodes > 0) {
+            searchNodes.increment(nodes);
+            searchDepth.get(difficulty).record(depth);
+            searchNps.get(difficulty).record(nodes * 1_000_000_000.0 / Math.max(1, nanos));
+        }
+    }
+
+    public void gameCreated(Game.GameType type) {
+        gamesCreated.get(type).increment();
+    }
+
+    public void gameFinished(Game.GameStatus status) {
+        Counter counter = gamesFinished.get(status);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public void gameEvicted(GameCache.Eviction reason) {
+        gamesEvicted.get(reason).increment();
+    }
+
+    public void gameRestored() {
+        gamesRestored.increment();
+    }
+
+    public void ponderFinished(ChessAI.PonderOutcome outcome) {
+        ponders.get(outcome).increment();
+    }
+
+    public void monitorGameCache(Map<?, ?> resident) {
+        registry.gaugeMapSize("chess.games.resident", Tags.empty(), resident);
+    }
+
+    public void monitorMemoryStore(Map<?, byte[]> stored) {
+        registry.gaugeMapSize("chess.store.memory.games", Tags.empty(), stored);
+    }
+
+    public void monitorAIQueue(Supplier<Number> queuedJobs) {
+        Gauge.builder("chess.ai.queue.size", queuedJobs, jobs -> jobs.get().doubleValue())
+                .description("AI jobs waiting for a thread").strongReference(true).register(registry);
+    }
+}
@@ -1,19 +1,39 @@
 package com.chess.service;
 
+import com.chess.engine.Bitboards;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
 import com.chess.model.Game;
+import com.chess.model.GameDelta;
+import com.chess.model.LegalMove;
 import com.chess.model.Move;
 import com.chess.model.Piece;
+import com.chess.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class ChessService {
     
+    private static final Logger log = LoggerFactory.getLogger(ChessService.class);
+    
     @Autowired
     private ChessAI chessAI;
     
+    @Autowired
+    private ChessMetrics metrics;
+    
+    @Autowired
+    private GameRepository gameRepository;
+    
+    @Autowired
+    private GameEventPublisher gameEventPublisher;
+    
     public Game initializeGame() {
         Game game = new Game();
         List<Piece> pieces = new ArrayList<>();
@@ -49,205 +69,171 @@ public class ChessService {
         return game;
     }
     
-    // Enhanced method to make AI move with proper error handling
+    // Enhanced method to make AI move with proper error handling. The search runs on the
+    // published snapshot without holding the game's write lock; the move is only applied if
+    // the game has not changed in the meantime.
     public Move makeAIMove(Game game) {
-        if (!game.isAIGame() || !game.isAITurn()) {
-            System.out.println("Not AI's turn or not AI game");
+        return makeAIMove(game, game.getAiDifficulty());
+    }
+    
+    // The AI move for the side to move at the given difficulty, which lets the self-play
+    // runner pit two levels against each other in one AI_VS_AI game
+    public Move makeAIMove(Game game, Game.AIDifficulty difficulty) {
+        Game snapshot = game.getSnapshot();
+        if (!snapshot.isAIGame() || !snapshot.isAITurn()) {
+            log.debug("Game {}: not the AI's turn", snapshot.getId());
             return null;
         }
         
-        System.out.println("=== MAKING AI MOVE ===");
-        System.out.println("Game ID: " + game.getId());
-        System.out.println("Current player: " + game.getCurrentPlayer());
-        System.out.println("AI color: " + game.getAiColor());
+        if (log.isDebugEnabled()) {
+            log.debug("Game {}: making AI move for {} at move {}", snapshot.getId(), snapshot.getCurrentPlayer(), snapshot.getMoveCount());
+        }
         
         // Check if AI has any valid moves before trying to get best move
-        List<AIMove> possibleMoves = getAllValidMovesForPlayer(game, game.getCurrentPlayer());
-        if (possibleMoves.isEmpty()) {
-            System.out.println("AI has no valid moves - checking for checkmate/stalemate");
-            checkForGameEnd(game);
-            return null;
+        ChessAI.AIMove aiMove = null;
+        if (snapshot.getLegalMoves().length == 0) {
+            log.debug("Game {}: AI has no valid moves", snapshot.getId());
+        } else {
+            aiMove = chessAI.getBestMove(snapshot, difficulty);
+            
+            // The AI job was cancelled (e.g. the game ended) while the search was running
+            if (Thread.currentThread().isInterrupted()) {
+                log.debug("Game {}: AI move cancelled", snapshot.getId());
+                return null;
+            }
+            if (aiMove == null) {
+                log.warn("Game {}: AI returned no move", snapshot.getId());
+            }
         }
         
-        ChessAI.AIMove aiMove = chessAI.getBestMove(game, game.getAiDifficulty(), this);
-        if (aiMove == null) {
-            System.out.println("AI returned null move!");
-            // If AI can't find a move but has valid moves, there might be an issue
+        ReentrantLock lock = game.getWriteLock();
+        lock.lock();
+        try {
+            if (game.getMoveCount() != snapshot.getMoveCount() || game.getStatus() != Game.GameStatus.ACTIVE) {
+                log.debug("Game {}: changed during AI search, discarding move", game.getId());
+                return null;
+            }
+            
+            Move move = null;
+            if (aiMove != null) {
+                // Validate the AI move before executing
+                if (!isValidMove(game, aiMove.fromRow, aiMove.fromCol, aiMove.toRow, aiMove.toCol)) {
+                    if (log.isErrorEnabled()) {
+                        log.error("Game {}: AI generated invalid move {},{} -> {},{}", game.getId(),
+                                  aiMove.fromRow, aiMove.fromCol, aiMove.toRow, aiMove.toCol);
+                    }
+                    return null;
+                }
+                
+                move = executeMove(game, aiMove.fromRow, aiMove.fromCol, aiMove.toRow, aiMove.toCol);
+            }
+            
+            // Always check for game end after AI move attempt
             checkForGameEnd(game);
-            return null;
-        }
-        
-        System.out.println("AI wants to move: " + aiMove.fromRow + "," + aiMove.fromCol + " -> " + aiMove.toRow + "," + aiMove.toCol);
-        
-        // Validate the AI move before executing
-        if (!isValidMove(game, aiMove.fromRow, aiMove.fromCol, aiMove.toRow, aiMove.toCol)) {
-            System.out.println("ERROR: AI generated invalid move!");
-            return null;
+            game.publishSnapshot();
+            gameRepository.moveMade(game, move);
+            if (move != null) {
+                chessAI.startPondering(game);
+            }
+            
+            // Pushed to subscribers as soon as it is applied, instead of waiting for the next poll
+            gameEventPublisher.publish(game, move);
+            return move;
+        } finally {
+            lock.unlock();
         }
-        
-        System.out.println("AI move is valid, executing...");
-        return executeMove(game, aiMove.fromRow, aiMove.fromCol, aiMove.toRow, aiMove.toCol);
     }
     
-    // Enhanced method to check for all game end conditions
+    // Enhanced method to check for all game end conditions. Mutates the game, so callers hold
+    // its write lock and publish a snapshot afterwards.
     public void checkForGameEnd(Game game) {
         if (game.getStatus() != Game.GameStatus.ACTIVE) {
             return; // Game already ended
         }
         
+        // Served from the game's per-position cache, so repeated checks cost nothing; only a
+        // new position's generation is timed
         Piece.Color currentPlayer = game.getCurrentPlayer();
-        List<AIMove> validMoves = getAllValidMovesForPlayer(game, currentPlayer);
-        
-        System.out.println("=== CHECKING GAME END ===");
-        System.out.println("Current player: " + currentPlayer);
-        System.out.println("Valid moves available: " + validMoves.size());
+        int validMoves;
+        if (game.isLegalMovesCached()) {
+            validMoves = game.getLegalMoves().length;
+        } else {
+            long start = System.nanoTime();
+            validMoves = game.getLegalMoves().length;
+            metrics.recordMoveGeneration(System.nanoTime() - start);
+        }
         
-        if (validMoves.isEmpty()) {
+        if (validMoves == 0) {
             // No valid moves = checkmate (game over)
-            System.out.println("CHECKMATE detected! (No valid moves available)");
             game.setStatus(Game.GameStatus.CHECKMATE);
             Piece.Color winner = (currentPlayer == Piece.Color.WHITE) ? 
                                 Piece.Color.BLACK : Piece.Color.WHITE;
             game.setWinner(winner);
-        } else {
-            // Player has valid moves, game continues
-            System.out.println("Game continues - player has " + validMoves.size() + " valid moves");
+            metrics.gameFinished(Game.GameStatus.CHECKMATE);
+            log.info("Game {}: checkmate, {} wins", game.getId(), winner);
+        } else if (chessAI.isTablebaseDraw(game.getPosition())) {
+            // The tablebases prove nobody can win, so the game would otherwise go on forever
+            game.setStatus(Game.GameStatus.DRAW);
+            game.setWinner(null);
+            metrics.gameFinished(Game.GameStatus.DRAW);
+            log.info("Game {}: drawn ending", game.getId());
+        } else if (log.isTraceEnabled()) {
+            log.trace("Game {}: {} has {} valid moves", game.getId(), currentPlayer, validMoves);
         }
     }
     
-    // New method to get all valid moves for a player
-    private List<AIMove> getAllValidMovesForPlayer(Game game, Piece.Color playerColor) {
-        List<AIMove> validMoves = new ArrayList<>();
-        
-        List<Piece> playerPieces = game.getPieces().stream()
-                .filter(p -> p.getColor() == playerColor)
-                .toList();
-        
-        System.out.println("Checking moves for " + playerColor + " - found " + playerPieces.size() + " pieces");
-        
-        for (Piece piece : playerPieces) {
-            System.out.println("Checking piece: " + piece.getType() + " at " + piece.getRow() + "," + piece.getCol());
-            int pieceMoves = 0;
-            
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    if (isValidMove(game, piece.getRow(), piece.getCol(), row, col)) {
-                        validMoves.add(new AIMove(piece.getRow(), piece.getCol(), row, col, 0));
-                        pieceMoves++;
-                    }
-                }
-            }
-            
-            System.out.println("  Found " + pieceMoves + " valid moves for this piece");
-        }
-        
-        System.out.println("Total valid moves for " + playerColor + ": " + validMoves.size());
-        return validMoves;
+    // Applies a stored move during recovery, with the same validation and game-end check as a live one
+    public Move replayMove(Game game, int fromRow, int fromCol, int toRow, int toCol, long epochMillis) {
+        Move move = executeMove(game, fromRow, fromCol, toRow, toCol, epochMillis);
+        checkForGameEnd(game);
+        return move;
     }
     
     public Move executeMove(Game game, int fromRow, int fromCol, int toRow, int toCol) {
+        return executeMove(game, fromRow, fromCol, toRow, toCol, System.currentTimeMillis());
+    }
+    
+    private Move executeMove(Game game, int fromRow, int fromCol, int toRow, int toCol, long epochMillis) {
         if (!isValidMove(game, fromRow, fromCol, toRow, toCol)) {
             throw new RuntimeException("Invalid move");
         }
         
-        Piece piece = getPieceAt(game, fromRow, fromCol);
-        Piece capturedPiece = getPieceAt(game, toRow, toCol);
-        
-        System.out.println("Executing move: " + piece.getType() + " " + piece.getColor() + 
-                          " from " + fromRow + "," + fromCol + " to " + toRow + "," + toCol);
-        
-        if (capturedPiece != null) {
-            System.out.println("Capturing: " + capturedPiece.getType() + " " + capturedPiece.getColor());
-            game.getPieces().remove(capturedPiece);
+        Position position = game.getPosition();
+        int from = Bitboards.square(fromRow, fromCol);
+        int to = Bitboards.square(toRow, toCol);
+        int piece = position.pieceAt(from);
+        int capturedPiece = position.pieceAt(to);
+        Piece.Color color = Position.colorOf(piece);
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Game {}: {} {} {},{} -> {},{}{}", game.getId(), color, Position.typeOf(piece),
+                      fromRow, fromCol, toRow, toCol,
+                      capturedPiece != Position.EMPTY ? " captures " + Position.typeOf(capturedPiece) : "");
         }
         
-        piece.setRow(toRow);
-        piece.setCol(toCol);
-        piece.setHasMoved(true);
-        
         // Pawn promotion
-        if (piece.getType() == Piece.PieceType.PAWN) {
-            if ((piece.getColor() == Piece.Color.WHITE && toRow == 0) || 
-                (piece.getColor() == Piece.Color.BLACK && toRow == 7)) {
-                System.out.println("Pawn promotion to Queen!");
-                piece.setType(Piece.PieceType.QUEEN);
+        int movedPiece = piece;
+        boolean promotion = false;
+        if (Position.typeOf(piece) == Piece.PieceType.PAWN) {
+            if ((color == Piece.Color.WHITE && toRow == 0) || 
+                (color == Piece.Color.BLACK && toRow == 7)) {
+                movedPiece = Position.code(Piece.PieceType.QUEEN, color);
+                promotion = true;
             }
         }
         
-        Move move = new Move(fromRow, fromCol, toRow, toCol, piece.getType(), piece.getColor());
-        move.setMoveNumber(game.getMoveCount() + 1);
-        game.getMoves().add(move);
-        game.setMoveCount(game.getMoveCount() + 1);
+        position.move(from, to, movedPiece);
+        game.recordMove(from, to, piece, promotion, epochMillis);
+        Move move = game.getMove(game.getHistorySize() - 1);
         
         // Switch players
         Piece.Color opponent = (game.getCurrentPlayer() == Piece.Color.WHITE) ? 
                               Piece.Color.BLACK : Piece.Color.WHITE;
         game.setCurrentPlayer(opponent);
         
-        System.out.println("Move completed. Current player now: " + game.getCurrentPlayer());
-        
         return move;
     }
     
-    private boolean isKingInCheck(Game game, Piece.Color kingColor) {
-        // Find the king
-        Piece king = game.getPieces().stream()
-                .filter(p -> p.getType() == Piece.PieceType.KING && p.getColor() == kingColor)
-                .findFirst()
-                .orElse(null);
-        
-        if (king == null) {
-            System.out.println("WARNING: No king found for color " + kingColor);
-            return false;
-        }
-        
-        // Check if any opponent piece can attack the king
-        Piece.Color opponentColor = (kingColor == Piece.Color.WHITE) ? 
-                                   Piece.Color.BLACK : Piece.Color.WHITE;
-        
-        boolean inCheck = game.getPieces().stream()
-                .filter(p -> p.getColor() == opponentColor)
-                .anyMatch(p -> canPieceAttack(game, p, king.getRow(), king.getCol()));
-        
-        if (inCheck) {
-            System.out.println(kingColor + " king is in check at " + king.getRow() + "," + king.getCol());
-        }
-        
-        return inCheck;
-    }
-    
-    private boolean canPieceAttack(Game game, Piece piece, int targetRow, int targetCol) {
-        return isValidPieceMove(game, piece, piece.getRow(), piece.getCol(), targetRow, targetCol);
-    }
-    
-    // Create a copy of the game to simulate moves
-    private Game simulateMove(Game originalGame, int fromRow, int fromCol, int toRow, int toCol) {
-        Game tempGame = new Game();
-        tempGame.setCurrentPlayer(originalGame.getCurrentPlayer());
-        
-        // Copy pieces
-        List<Piece> tempPieces = new ArrayList<>();
-        for (Piece piece : originalGame.getPieces()) {
-            Piece tempPiece = new Piece(piece.getType(), piece.getColor(), piece.getRow(), piece.getCol());
-            tempPiece.setHasMoved(piece.isHasMoved());
-            tempPieces.add(tempPiece);
-        }
-        tempGame.setPieces(tempPieces);
-        
-        // Execute the move on the temp game
-        Piece piece = getPieceAt(tempGame, fromRow, fromCol);
-        Piece capturedPiece = getPieceAt(tempGame, toRow, toCol);
-        
-        if (capturedPiece != null) {
-            tempGame.getPieces().remove(capturedPiece);
-        }
-        
-        piece.setRow(toRow);
-        piece.setCol(toCol);
-        
-        return tempGame;
-    }
-    
     // Validate move
     private boolean isValidMoveWithoutCheckValidation(Game game, int fromRow, int fromCol, int toRow, int toCol) {
         if (fromRow < 0 || fromRow > 7 || fromCol < 0 || fromCol > 7 ||
@@ -255,121 +241,154 @@ public class ChessService {
             return false;
         }
         
-        Piece piece = getPieceAt(game, fromRow, fromCol);
-        if (piece == null) {
+        Position position = game.getPosition();
+        int from = Bitboards.square(fromRow, fromCol);
+        int to = Bitboards.square(toRow, toCol);
+        
+        int piece = position.pieceAt(from);
+        if (piece == Position.EMPTY) {
             return false;
         }
         
-        if (fromRow == toRow && fromCol == toCol) {
+        if (from == to) {
             return false;
         }
         
-        Piece targetPiece = getPieceAt(game, toRow, toCol);
-        if (targetPiece != null && targetPiece.getColor() == piece.getColor()) {
+        int targetPiece = position.pieceAt(to);
+        if (targetPiece != Position.EMPTY && Position.colorOf(targetPiece) == Position.colorOf(piece)) {
             return false;
         }
         
-        return isValidPieceMove(game, piece, fromRow, fromCol, toRow, toCol);
+        return isValidPieceMove(position, piece, from, to);
     }
     
     public boolean isValidMove(Game game, int fromRow, int fromCol, int toRow, int toCol) {
+        boolean valid = isLegalMove(game, fromRow, fromCol, toRow, toCol);
+        metrics.recordValidation(valid);
+        return valid;
+    }
+    
+    private boolean isLegalMove(Game game, int fromRow, int fromCol, int toRow, int toCol) {
         if (!isValidMoveWithoutCheckValidation(game, fromRow, fromCol, toRow, toCol)) {
             return false;
         }
         
-        Piece piece = getPieceAt(game, fromRow, fromCol);
-        if (piece.getColor() != game.getCurrentPlayer()) {
+        Position position = game.getPosition();
+        int from = Bitboards.square(fromRow, fromCol);
+        if (Position.colorOf(position.pieceAt(from)) != game.getCurrentPlayer()) {
             return false;
         }
         
-        Game tempGame = simulateMove(game, fromRow, fromCol, toRow, toCol);
-        return !isKingInCheck(tempGame, piece.getColor());
+        // Tests the king against the post-move occupancy without copying the board
+        return position.isLegal(MoveGenerator.move(from, Bitboards.square(toRow, toCol)));
     }
     
-    private boolean isValidPieceMove(Game game, Piece piece, int fromRow, int fromCol, int toRow, int toCol) {
-        int rowDiff = Math.abs(toRow - fromRow);
-        int colDiff = Math.abs(toCol - fromCol);
+    private boolean isValidPieceMove(Position position, int piece, int from, int to) {
+        int rowDiff = Math.abs(Bitboards.rowOf(to) - Bitboards.rowOf(from));
+        int colDiff = Math.abs(Bitboards.colOf(to) - Bitboards.colOf(from));
         
-        switch (piece.getType()) {
+        switch (Position.typeOf(piece)) {
             case PAWN:
-                return isValidPawnMove(game, piece, fromRow, fromCol, toRow, toCol);
+                return isValidPawnMove(position, piece, from, to);
             case ROOK:
-                return (rowDiff == 0 || colDiff == 0) && isPathClear(game, fromRow, fromCol, toRow, toCol);
+                return (rowDiff == 0 || colDiff == 0) && isPathClear(position, from, to);
             case BISHOP:
-                return (rowDiff == colDiff) && isPathClear(game, fromRow, fromCol, toRow, toCol);
+                return (rowDiff == colDiff) && isPathClear(position, from, to);
             case QUEEN:
                 return (rowDiff == 0 || colDiff == 0 || rowDiff == colDiff) && 
-                       isPathClear(game, fromRow, fromCol, toRow, toCol);
+                       isPathClear(position, from, to);
             case KING:
-                return rowDiff <= 1 && colDiff <= 1;
+                return (Bitboards.KING_ATTACKS[from] & Bitboards.bit(to)) != 0;
             case KNIGHT:
-                return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
+                return (Bitboards.KNIGHT_ATTACKS[from] & Bitboards.bit(to)) != 0;
             default:
                 return false;
         }
     }
     
-    private boolean isValidPawnMove(Game game, Piece pawn, int fromRow, int fromCol, int toRow, int toCol) {
-        int direction = (pawn.getColor() == Piece.Color.WHITE) ? -1 : 1;
-        int rowDiff = toRow - fromRow;
-        int colDiff = Math.abs(toCol - fromCol);
+    private boolean isValidPawnMove(Position position, int pawn, int from, int to) {
+        Piece.Color color = Position.colorOf(pawn);
+        int direction = (color == Piece.Color.WHITE) ? -1 : 1;
+        int rowDiff = Bitboards.rowOf(to) - Bitboards.rowOf(from);
+        int colDiff = Math.abs(Bitboards.colOf(to) - Bitboards.colOf(from));
         
         if (colDiff == 0) {
             // Moving forward
-            if (rowDiff == direction && getPieceAt(game, toRow, toCol) == null) {
+            if (rowDiff == direction && position.pieceAt(to) == Position.EMPTY) {
                 return true;
             }
-            if (!pawn.isHasMoved() && rowDiff == 2 * direction && 
-                getPieceAt(game, toRow, toCol) == null && 
-                getPieceAt(game, fromRow + direction, fromCol) == null) {
+            if (!position.hasMoved(from) && rowDiff == 2 * direction && 
+                position.pieceAt(to) == Position.EMPTY && 
+                position.pieceAt(from + 8 * direction) == Position.EMPTY) {
                 return true;
             }
         }
         else if (colDiff == 1 && rowDiff == direction) {
             // Diagonal capture
-            Piece targetPiece = getPieceAt(game, toRow, toCol);
-            return targetPiece != null && targetPiece.getColor() != pawn.getColor();
+            int targetPiece = position.pieceAt(to);
+            return targetPiece != Position.EMPTY && Position.colorOf(targetPiece) != color;
         }
         
         return false;
     }
     
-    private boolean isPathClear(Game game, int fromRow, int fromCol, int toRow, int toCol) {
-        int rowStep = Integer.compare(toRow, fromRow);
-        int colStep = Integer.compare(toCol, fromCol);
-        
-        int currentRow = fromRow + rowStep;
-        int currentCol = fromCol + colStep;
+    private boolean isPathClear(Position position, int from, int to) {
+        return (Bitboards.between(from, to) & position.occupied()) == 0;
+    }
+    
+    // Legal moves for the side to move, from the snapshot's cached generation pass; only those
+    // starting on fromSquare unless it is negative. Empty once the game is over.
+    public List<LegalMove> getLegalMoves(Game game, int fromSquare) {
+        if (game.getStatus() != Game.GameStatus.ACTIVE) {
+            return List.of();
+        }
         
-        while (currentRow != toRow || currentCol != toCol) {
-            if (getPieceAt(game, currentRow, currentCol) != null) {
-                return false;
+        Position position = game.getPosition();
+        List<LegalMove> result = new ArrayList<>();
+        for (int move : game.getLegalMoves()) {
+            int from = MoveGenerator.from(move);
+            if (fromSquare >= 0 && from != fromSquare) {
+                continue;
             }
-            currentRow += rowStep;
-            currentCol += colStep;
+            int to = MoveGenerator.to(move);
+            int row = Bitboards.rowOf(to);
+            boolean promotion = Position.typeOf(position.pieceAt(from)) == Piece.PieceType.PAWN && (row == 0 || row == 7);
+            result.add(new LegalMove(Bitboards.rowOf(from), Bitboards.colOf(from), row, Bitboards.colOf(to), promotion));
         }
-        
-        return true;
+        return result;
     }
     
-    public Piece getPieceAt(Game game, int row, int col) {
-        return game.getPieces().stream()
-                .filter(piece -> piece.getRow() == row && piece.getCol() == col)
-                .findFirst()
-                .orElse(null);
+    // Moves after afterMoveNumber and the current contents of every square they touched. Pass a
+    // snapshot; a negative or unknown move number yields the whole history. A number past the
+    // end means the client saw moves the server no longer has (e.g. lost in a restart), so it
+    // gets the whole history too and resyncs from the start.
+    public GameDelta getGameSince(Game game, int afterMoveNumber) {
+        List<Move> history = game.getMoves();
+        int after = afterMoveNumber < 0 || afterMoveNumber > history.size() ? 0 : afterMoveNumber;
+        List<Move> moves = history.subList(after, history.size());
+        
+        long touched = 0L;
+        for (Move move : moves) {
+            touched |= Bitboards.bit(Bitboards.square(move.getFromRow(), move.getFromCol()))
+                     | Bitboards.bit(Bitboards.square(move.getToRow(), move.getToCol()));
+        }
+        
+        List<GameDelta.SquareChange> changes = new ArrayList<>(Long.bitCount(touched));
+        while (touched != 0) {
+            int square = Long.numberOfTrailingZeros(touched);
+            touched &= touched - 1;
+            int row = Bitboards.rowOf(square);
+            int col = Bitboards.colOf(square);
+            changes.add(new GameDelta.SquareChange(row, col, getPieceAt(game, row, col)));
+        }
+        
+        return new GameDelta(game, after, moves, changes);
     }
     
-    // Helper class for AI moves 
-    public static class AIMove {
-        public int fromRow, fromCol, toRow, toCol;
-        public int score;
-        
-        public AIMove(int fromRow, int fromCol, int toRow, int toCol, int score) {
-            this.fromRow = fromRow;
-            this.fromCol = fromCol;
-            this.toRow = toRow;
-            this.toCol = toCol;
-            this.score = score;
+    public Piece getPieceAt(Game game, int row, int col) {
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return null;
         }
+        return game.getPieceAt(Bitboards.square(row, col));
     }
-}
\ No newline at end of file
+}
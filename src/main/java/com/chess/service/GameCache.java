@@ -0,0 +1,179 @@
+package com.chess.service;
+
+import com.chess.config.GameCacheProperties;
+import com.chess.model.Game;
+import com.chess.repository.GameRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The games held in memory. Any other game lives only in the GameRepository and is loaded
+// again on its next access, so memory holds the games in play rather than every game played.
+// A sweeper evicts finished games shortly after their last access, active games nobody has
+// touched for the idle TTL, and the least recently used games while over max-resident.
+// A game waiting on an AI reply is never evicted, since the scheduled job holds its Game.
+// Eviction happens under the game's write lock and marks the old Game evicted; writers take
+// the lock through lock(gameId), which moves on to the reloaded game if they lost that race.
+@Service
+public class GameCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GameCache.class);
+
+    public enum Eviction {
+        IDLE, FINISHED, CAPACITY
+    }
+
+    @Autowired
+    private GameCacheProperties properties;
+
+    @Autowired
+    private ChessMetrics metrics;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private final Map<Long, Game> resident = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        metrics.monitorGameCache(resident);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, properties.getSweepIntervalMs(),
+                                       properties.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    public void put(Game game) {
+        game.touch();
+        resident.put(game.getId(), game);
+        if (resident.size() > properties.getMaxResident()) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    // The game, loaded first if it isn't resident; null if the id is unknown. Callers that only
+    // read should use its snapshot, callers that mutate should use lock instead.
+    public Game get(Long gameId) {
+        Game game = resident.get(gameId);
+        if (game == null) {
+            game = resident.computeIfAbsent(gameId, this::load);
+            if (game == null) {
+                return null;
+            }
+            game.touch();
+            if (resident.size() > properties.getMaxResident()) {
+                evictLeastRecentlyUsed();
+            }
+            return game;
+        }
+        game.touch();
+        return game;
+    }
+
+    // The resident game with its write lock held, or null if the id is unknown
+    public Game lock(Long gameId) {
+        while (true) {
+            Game game = get(gameId);
+            if (game == null) {
+                return null;
+            }
+            ReentrantLock lock = game.getWriteLock();
+            lock.lock();
+            if (!game.isEvicted()) {
+                return game;
+            }
+            lock.unlock();
+        }
+    }
+
+    public int getResidentCount() {
+        return resident.size();
+    }
+
+    private Game load(Long gameId) {
+        Game game = gameRepository.load(gameId);
+        if (game != null) {
+            metrics.gameRestored();
+            log.debug("Game {} loaded from the repository", gameId);
+        }
+        return game;
+    }
+
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Game game : resident.values()) {
+                long idle = now - game.getLastAccessed();
+                if (game.getSnapshot().getStatus() != Game.GameStatus.ACTIVE) {
+                    if (idle >= properties.getRetireFinishedAfterMs()) {
+                        evict(game, Eviction.FINISHED);
+                    }
+                } else if (idle >= properties.getIdleTtlMs()) {
+                    evict(game, Eviction.IDLE);
+                }
+            }
+            if (resident.size() > properties.getMaxResident()) {
+                evictLeastRecentlyUsed();
+            }
+        } catch (RuntimeException e) {
+            log.error("Game cache sweep failed", e);
+        }
+    }
+
+    // Evicts down to 90% of the cap, so the sort isn't repeated for every game created over it
+    private synchronized void evictLeastRecentlyUsed() {
+        int target = properties.getMaxResident() * 9 / 10;
+        if (resident.size() <= target) {
+            return;
+        }
+        List<Game> games = new ArrayList<>(resident.values());
+        games.sort(Comparator.comparingLong(Game::getLastAccessed));
+        for (Game game : games) {
+            if (resident.size() <= target) {
+                break;
+            }
+            evict(game, Eviction.CAPACITY);
+        }
+    }
+
+    // Skips a game that is busy or waiting on the AI rather than waiting for it
+    private void evict(Game game, Eviction reason) {
+        ReentrantLock lock = game.getWriteLock();
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (game.isEvicted() || (game.getStatus() == Game.GameStatus.ACTIVE && game.isAITurn())) {
+                return;
+            }
+            gameRepository.gameEvicted(game);
+            game.setEvicted(true);
+            resident.remove(game.getId(), game);
+            metrics.gameEvicted(reason);
+            log.debug("Game {} evicted ({})", game.getId(), reason);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.chess.service;
+
+import com.chess.model.Game;
+import com.chess.model.Move;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes game updates to GraphQL subscribers instead of having clients poll.
+// - One channel per game, created when the first client subscribes; games nobody watches
+//   cost nothing beyond a map lookup per move.
+// - Channels are created and published to under the game's write lock, so every subscriber
+//   sees snapshots in move order and never misses a move made while it was subscribing.
+// - A new gameUpdated subscriber immediately receives the latest snapshot.
+// - When the game ends the final snapshot is sent and the streams complete.
+// - A channel is dropped as soon as its last subscriber goes away, so abandoned games that
+//   were once watched don't keep their sinks for the life of the server.
+@Service
+public class GameEventPublisher {
+
+    private final Map<Long, GameChannel> channels = new ConcurrentHashMap<>();
+
+    private static class GameChannel {
+        private final Sinks.Many<Game> updates = Sinks.many().replay().latest();
+        private final Sinks.Many<Move> moves = Sinks.many().multicast().directBestEffort();
+        // Subscribers of either stream; only changed inside channels.compute
+        private int subscribers;
+    }
+
+    public Flux<Game> gameUpdates(Game game) {
+        return Flux.defer(() -> {
+            GameChannel channel = subscribe(game);
+            return channel.updates.asFlux().doFinally(signal -> unsubscribe(game.getId(), channel));
+        });
+    }
+
+    public Flux<Move> moves(Game game) {
+        return Flux.defer(() -> {
+            GameChannel channel = subscribe(game);
+            return channel.moves.asFlux().doFinally(signal -> unsubscribe(game.getId(), channel));
+        });
+    }
+
+    // Called under the game's write lock right after publishSnapshot; move is null when only
+    // the status changed
+    public void publish(Game game, Move move) {
+        GameChannel channel = channels.get(game.getId());
+        if (channel == null) {
+            return;
+        }
+
+        Game snapshot = game.getSnapshot();
+        if (move != null) {
+            channel.moves.tryEmitNext(move);
+        }
+        channel.updates.tryEmitNext(snapshot);
+
+        if (snapshot.getStatus() != Game.GameStatus.ACTIVE) {
+            close(game.getId());
+        }
+    }
+
+    // Completes the game's streams, e.g. when the game ends
+    public void close(Long gameId) {
+        GameChannel channel = channels.remove(gameId);
+        if (channel != null) {
+            channel.moves.tryEmitComplete();
+            channel.updates.tryEmitComplete();
+        }
+    }
+
+    private GameChannel subscribe(Game game) {
+        ReentrantLock lock = game.getWriteLock();
+        lock.lock();
+        try {
+            // A finished game gets its final state and nothing more
+            if (game.getSnapshot().getStatus() != Game.GameStatus.ACTIVE) {
+                GameChannel channel = new GameChannel();
+                channel.updates.tryEmitNext(game.getSnapshot());
+                channel.moves.tryEmitComplete();
+                channel.updates.tryEmitComplete();
+                return channel;
+            }
+            return channels.compute(game.getId(), (id, channel) -> {
+                if (channel == null) {
+                    channel = new GameChannel();
+                    channel.updates.tryEmitNext(game.getSnapshot());
+                }
+                channel.subscribers++;
+                return channel;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops the channel with its last subscriber; a channel already closed or replaced is left alone
+    private void unsubscribe(Long gameId, GameChannel channel) {
+        channels.computeIfPresent(gameId, (id, current) ->
+                current == channel && --current.subscribers == 0 ? null : current);
+    }
+}
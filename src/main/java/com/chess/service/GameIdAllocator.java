@@ -0,0 +1,51 @@
+package com.chess.service;
+
+import com.chess.config.ClusterProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands out game ids without locks or coordination between servers. An id is the node id
+// followed by a per-node sequence: nodeId << 42 | sequence. Node 0 therefore issues
+// 1, 2, 3, ... and ids stay below 2^52, so they are exact as JavaScript numbers too.
+// The sequence is a single atomic counter. After a restart it continues past the highest id
+// this node has on disk in any form, finished and quarantined games included, see observe.
+@Component
+public class GameIdAllocator {
+
+    private static final int SEQUENCE_BITS = 42;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_NODE_ID = 1023;
+
+    @Autowired
+    private ClusterProperties clusterProperties;
+
+    private long prefix;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int nodeId = clusterProperties.getNodeId();
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new RuntimeException("chess.cluster.node-id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        prefix = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public long next() {
+        long next = sequence.incrementAndGet();
+        if (next > MAX_SEQUENCE) {
+            throw new RuntimeException("Game ids exhausted for node " + clusterProperties.getNodeId());
+        }
+        return prefix | next;
+    }
+
+    // Called for every stored game id so new ids continue after this node's; ids issued by
+    // other nodes are ignored
+    public void observe(long gameId) {
+        if ((gameId & ~MAX_SEQUENCE) == prefix) {
+            sequence.accumulateAndGet(gameId & MAX_SEQUENCE, Math::max);
+        }
+    }
+}